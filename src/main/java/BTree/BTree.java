@@ -1,8 +1,18 @@
 package BTree;
 
+import Main.DBApp;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Vector;
+import java.util.stream.LongStream;
 
 /**
  * A B+ tree
@@ -12,39 +22,227 @@ import java.util.Vector;
  * @param <TValue> the data type of the value
  */
 public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Serializable {
+	// Same as before the class evolved, so indices written by older versions can still be read
+	private static final long serialVersionUID = -3209192232933521772L;
+
 	private final String indexName;
 	private final String colName;
+	// Only set in trees written before nodes were kept in a store, readObject moves their nodes into one
 	private BTreeNode<TKey> root;
+	private NodeStore<TKey> store;
+	private int rootId;
+	// True if the values are clustering keys instead of "page serial-clustering key",
+	// they stay valid when tuples move between pages. False for indices written by older versions
+	private boolean logicalPointers;
+	// True if the leaves store packed record ids instead of strings, see RecordId
+	private boolean recordIds;
 
 	public BTree(String indexName, String colName) {
-		this.root = new BTreeLeafNode<TKey, TValue>();
+		this(indexName, colName, false);
+	}
+
+	public BTree(String indexName, String colName, boolean logicalPointers) {
+		this(indexName, colName, logicalPointers, false);
+	}
+
+	public BTree(String indexName, String colName, boolean logicalPointers, boolean recordIds) {
+		this(indexName, colName, logicalPointers, recordIds, null);
+	}
+
+	/**
+	 * A tree whose nodes are kept in their own file of fixed-size node pages instead of being serialized
+	 * with the tree, nodes are loaded on demand through a cache and only modified nodes are written back.
+	 * Flush has to be called before the tree itself is serialized.
+	 * @param nodeFile path of the file of the nodes, null to keep every node in memory
+	 */
+	public BTree(String indexName, String colName, boolean logicalPointers, boolean recordIds, String nodeFile) {
+		this.store = nodeFile == null ? new MemoryNodeStore<>() : new PagedNodeStore<>(nodeFile);
+		this.rootId = new BTreeLeafNode<TKey, TValue>(store, recordIds).id;
 		this.indexName = indexName;
 		this.colName = colName;
+		this.logicalPointers = logicalPointers;
+		this.recordIds = recordIds;
+	}
+
+	// Method to write every modified node back to the file of a paged tree
+	public void flush() {
+		store.flush();
+	}
+
+	private BTreeNode<TKey> getRoot() {
+		return store.get(rootId);
+	}
+
+	private void setRoot(BTreeNode<TKey> node) {
+		this.rootId = node.id;
+	}
+
+	public boolean hasLogicalPointers() {
+		return logicalPointers;
+	}
+
+	public boolean hasRecordIds() {
+		return recordIds;
+	}
+
+	public String getIndexName() {
+		return indexName;
 	}
 
 	public String getColName() {
 		return colName;
 	}
 	public int getRootKeyCount(){
-		return root.keyCount;
+		int keyCount = getRoot().keyCount;
+		store.release();
+		return keyCount;
 	}
 
 	/**
 	 * Insert a new key and its associated value into the B+ tree.
 	 */
 	public void insert(TKey key, TValue value) {
-		//Handle Duplicates
+		// A duplicate key only gets another value so it never overflows the leaf
 		BTreeLeafNode<TKey, TValue> leaf = this.findLeafNodeShouldContainKey(key);
-		if (search(key) != null) {
-			leaf.insertKey(key, value);
-			return;
+		leaf.insertKey(key, value, !logicalPointers);
+		if (leaf.isOverflow()) {
+			BTreeNode<TKey> n = leaf.dealOverflow();
+			if (n != null)
+				this.setRoot(n);
 		}
-		leaf.insertKey(key, value);
+		store.release();
+	}
+
+	/**
+	 * Insert a new key and the record id of its tuple into a tree storing record ids.
+	 */
+	public void insert(TKey key, long recordId) {
+		BTreeLeafNode<TKey, TValue> leaf = this.findLeafNodeShouldContainKey(key);
+		leaf.insertRecordId(key, recordId);
 		if (leaf.isOverflow()) {
 			BTreeNode<TKey> n = leaf.dealOverflow();
 			if (n != null)
-				this.root = n;
+				this.setRoot(n);
+		}
+		store.release();
+	}
+
+	/**
+	 * Replace the content of the tree with pointers sorted by key, pointers with equal keys share one entry.
+	 * Leaves are packed left to right up to the bulk load fill factor and every inner level is built
+	 * on top of the one below it, so no node is ever split.
+	 */
+	public void bulkLoad(Iterator<Pointer<TKey, TValue>> sortedPointers) {
+		List<TKey> keys = new ArrayList<>();
+		List<Object> entries = new ArrayList<>();
+		while (sortedPointers.hasNext()) {
+			Pointer<TKey, TValue> pointer = sortedPointers.next();
+			if (!keys.isEmpty() && keys.get(keys.size() - 1).compareTo(pointer.key()) == 0) {
+				((Vector<TValue>) entries.get(entries.size() - 1)).add(pointer.value());
+			} else {
+				Vector<TValue> vector = new Vector<>();
+				vector.add(pointer.value());
+				keys.add(pointer.key());
+				entries.add(vector);
+			}
+		}
+		build(keys, entries);
+	}
+
+	/**
+	 * Same as bulkLoad for a tree storing record ids.
+	 */
+	public void bulkLoadRecordIds(Iterator<Pointer<TKey, Long>> sortedRecordIds) {
+		List<TKey> keys = new ArrayList<>();
+		List<Object> entries = new ArrayList<>();
+		while (sortedRecordIds.hasNext()) {
+			Pointer<TKey, Long> pointer = sortedRecordIds.next();
+			if (keys.isEmpty() || keys.get(keys.size() - 1).compareTo(pointer.key()) != 0) {
+				keys.add(pointer.key());
+				entries.add(new RecordIds());
+			}
+			((RecordIds) entries.get(entries.size() - 1)).add(pointer.value());
+		}
+		build(keys, entries);
+	}
+
+	// Method to build the tree bottom up from distinct sorted keys and the values of every key
+	private void build(List<TKey> keys, List<Object> entries) {
+		store.clear();
+
+		// A leaf holds at most LEAFORDER keys and at least half of them unless it's the root
+		int[] leafSizes = packSizes(keys.size(), BTreeLeafNode.LEAFORDER, (BTreeLeafNode.LEAFORDER + 1) / 2);
+		List<BTreeNode<TKey>> level = new ArrayList<>();
+		// Smallest key under every node of the level, used as the separators of the level above
+		List<TKey> lowKeys = new ArrayList<>();
+		int next = 0;
+		for (int size : leafSizes) {
+			BTreeLeafNode<TKey, TValue> leaf = new BTreeLeafNode<>(store, recordIds);
+			for (int i = 0; i < size; i++, next++) {
+				leaf.setKey(i, keys.get(next));
+				leaf.setEntry(i, entries.get(next));
+			}
+			leaf.keyCount = size;
+			link(level, leaf);
+			lowKeys.add(leaf.getKey(0));
+		}
+		if (level.isEmpty()) {
+			this.setRoot(new BTreeLeafNode<TKey, TValue>(store, recordIds));
+			store.release();
+			return;
+		}
+
+		// An inner node holds at most INNERORDER keys, so one more child than that
+		while (level.size() > 1) {
+			int[] nodeSizes = packSizes(level.size(), BTreeInnerNode.INNERORDER + 1, (BTreeInnerNode.INNERORDER + 1) / 2 + 1);
+			List<BTreeNode<TKey>> upperLevel = new ArrayList<>();
+			List<TKey> upperLowKeys = new ArrayList<>();
+			next = 0;
+			for (int size : nodeSizes) {
+				BTreeInnerNode<TKey> node = new BTreeInnerNode<>(store);
+				upperLowKeys.add(lowKeys.get(next));
+				for (int i = 0; i < size; i++, next++) {
+					node.setChild(i, level.get(next));
+					if (i > 0) {
+						node.setKey(i - 1, lowKeys.get(next));
+					}
+				}
+				node.keyCount = size - 1;
+				link(upperLevel, node);
+			}
+			level = upperLevel;
+			lowKeys = upperLowKeys;
 		}
+		this.setRoot(level.get(0));
+		level.get(0).setParent(null);
+		store.release();
+	}
+
+	// Method to split count entries into nodes filled up to the bulk load fill factor,
+	// every node gets between min and max entries unless there's a single node
+	private static int[] packSizes(int count, int max, int min) {
+		int target = Math.max(min, Math.min(max, max * DBApp.bulkLoadFillFactor / 100));
+		int nodes = Math.max(1, (count + target - 1) / target);
+		while (nodes > 1 && count / nodes < min) {
+			nodes--;
+		}
+		while ((count + nodes - 1) / nodes > max) {
+			nodes++;
+		}
+		int[] sizes = new int[count == 0 ? 0 : nodes];
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = count / nodes + (i < count % nodes ? 1 : 0);
+		}
+		return sizes;
+	}
+
+	private static <TKey extends Comparable<TKey>> void link(List<BTreeNode<TKey>> level, BTreeNode<TKey> node) {
+		if (!level.isEmpty()) {
+			BTreeNode<TKey> left = level.get(level.size() - 1);
+			left.setRightSibling(node);
+			node.setLeftSibling(left);
+		}
+		level.add(node);
 	}
 
 	/**
@@ -56,8 +254,9 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 		if (leaf.delete(key) && leaf.isUnderflow()) {
 			BTreeNode<TKey> n = leaf.dealUnderflow();
 			if (n != null)
-				this.root = n;
+				this.setRoot(n);
 		}
+		store.release();
 	}
 
 	public void delete(TKey key, TValue value){
@@ -69,14 +268,33 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 			if (flag && leaf.isUnderflow()) {
 				BTreeNode<TKey> n = leaf.dealUnderflow();
 				if (n != null)
-					this.root = n;
+					this.setRoot(n);
+			}
+			leaf = leaf.getRightSibling();
+		}
+		store.release();
+	}
+
+	public void delete(TKey key, long recordId){
+		BTreeLeafNode<TKey, TValue> leaf = this.getLeafNodeForMinVal(key);
+		boolean flag = false;
+		while(!flag && leaf != null){
+			flag = leaf.deleteRecordId(key, recordId);
+
+			if (flag && leaf.isUnderflow()) {
+				BTreeNode<TKey> n = leaf.dealUnderflow();
+				if (n != null)
+					this.setRoot(n);
 			}
 			leaf = leaf.getRightSibling();
 		}
+		store.release();
 	}
 
 	public void deleteAll(){
-		this.root = new BTreeLeafNode<TKey,TValue>();
+		store.clear();
+		this.setRoot(new BTreeLeafNode<TKey,TValue>(store, recordIds));
+		store.release();
 	}
 
 
@@ -87,96 +305,77 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 		BTreeLeafNode<TKey, TValue> leaf = this.findLeafNodeShouldContainKey(key);
 
 		int index = leaf.search(key);
-		return (index == -1) ? null : leaf.getValue(index);
+		Vector<TValue> values = (index == -1) ? null : leaf.getValue(index);
+		store.release();
+		return values;
+	}
+
+	/**
+	 * Get a lazy cursor over the keys between lo and hi, a null bound means the range is open on that side.
+	 * The walk starts at the leaf holding the lower bound and stops at the first key past the upper bound.
+	 */
+	public BTreeCursor<TKey, TValue> range(TKey lo, boolean loInclusive, TKey hi, boolean hiInclusive) {
+		if (lo == null) {
+			return new BTreeCursor<>(getFirstLeafNodeOnLeft(), 0, hi, hiInclusive);
+		}
+		BTreeLeafNode<TKey, TValue> leaf = this.findLeafNodeShouldContainKey(lo);
+		int index = leaf.findKey(lo);
+		if (index < 0) {
+			index = -index - 1;
+		} else if (!loInclusive) {
+			index++;
+		}
+		return new BTreeCursor<>(leaf, index, hi, hiInclusive);
+	}
+
+	/**
+	 * Get the clustering keys of the record ids of every key between lo and hi as one posting list,
+	 * only for trees storing record ids. Page serials are cleared so the lists of every index of a table
+	 * can be intersected, a single key of an index pointing to clustering keys gives its stored list as is.
+	 */
+	public PostingList clusteringKeys(TKey lo, boolean loInclusive, TKey hi, boolean hiInclusive) {
+		BTreeCursor<TKey, TValue> cursor = range(lo, loInclusive, hi, hiInclusive);
+		if (!cursor.hasNext()) {
+			return new PostingList();
+		}
+		cursor.next();
+		if (logicalPointers && !cursor.hasNext()) {
+			return cursor.postings();
+		}
+		LongStream.Builder keys = LongStream.builder();
+		while (true) {
+			cursor.forEachRecordId(recordId -> keys.add(RecordId.of(0, RecordId.primaryKey(recordId))));
+			if (!cursor.hasNext()) {
+				break;
+			}
+			cursor.next();
+		}
+		long[] ids = keys.build().toArray();
+		return PostingList.of(ids, ids.length);
 	}
 
 	/**
 	 * Get the range of values in this B+ tree that are between this min and max
 	 */
 	public LinkedList<Pointer<TKey,TValue>> getLessThanKeys(TKey key){
-		LinkedList<Pointer<TKey,TValue>> list = new LinkedList<>();
-		BTreeLeafNode<TKey, TValue> currentNode = getFirstLeafNodeOnLeft();
-		do{
-			for (int i = 0; i < currentNode.getKeyCount(); i++) {
-				if(currentNode.getKey(i).compareTo(key) < 0) {
-					for (int j = 0; j < currentNode.getValue(i).size(); j++) {
-						list.add(new Pointer<>(currentNode.getKey(i), currentNode.getValue(i).get(j)));
-					}
-				}else {
-					return list;
-				}
-			}
-			currentNode = currentNode.getRightSibling();
-		}while (currentNode != null);
-		return list;
+		return toPointers(range(null, true, key, false));
 	}
 
 	public LinkedList<Pointer<TKey,TValue>> getLessThanOrEqualKeys(TKey key){
-		LinkedList<Pointer<TKey,TValue>> list = new LinkedList<>();
-		BTreeLeafNode<TKey, TValue> currentNode = getFirstLeafNodeOnLeft();
-		do{
-			for (int i = 0; i < currentNode.getKeyCount(); i++) {
-				if(currentNode.getKey(i).compareTo(key) <= 0) {
-					for (int j = 0; j < currentNode.getValue(i).size(); j++) {
-						list.add(new Pointer<>(currentNode.getKey(i), currentNode.getValue(i).get(j)));
-					}
-				}else {
-					return list;
-				}
-			}
-			currentNode = currentNode.getRightSibling();
-		}while (currentNode != null);
-		return list;
+		return toPointers(range(null, true, key, true));
 	}
 
 	public LinkedList<Pointer<TKey,TValue>> getMoreThanKeys(TKey key){
-		LinkedList<Pointer<TKey,TValue>> list = new LinkedList<>();
-		BTreeLeafNode<TKey, TValue> currentNode = getLeafNodeForMinVal(key);
-		do{
-			for (int i = 0; i < currentNode.getKeyCount(); i++) {
-				if(currentNode.getKey(i).compareTo(key) == 0){
-					continue;
-				}
-				if(currentNode.getKey(i).compareTo(key) > 0) {
-					for (int j = 0; j < currentNode.getValue(i).size(); j++) {
-						list.add(new Pointer<>(currentNode.getKey(i), currentNode.getValue(i).get(j)));
-					}
-				}
-			}
-			currentNode = currentNode.getRightSibling();
-		}while (currentNode != null);
-		return list;
+		return toPointers(range(key, false, null, true));
 	}
 
 	public LinkedList<Pointer<TKey,TValue>> getMoreThanOrEqualKeys(TKey key){
-		LinkedList<Pointer<TKey,TValue>> list = new LinkedList<>();
-		BTreeLeafNode<TKey, TValue> currentNode = getLeafNodeForMinVal(key);
-		do{
-			for (int i = 0; i < currentNode.getKeyCount(); i++) {
-				if(currentNode.getKey(i).compareTo(key) >= 0) {
-					for (int j = 0; j < currentNode.getValue(i).size(); j++) {
-						list.add(new Pointer<>(currentNode.getKey(i), currentNode.getValue(i).get(j)));
-					}
-				}
-			}
-			currentNode = currentNode.getRightSibling();
-		}while (currentNode != null);
-		return list;
+		return toPointers(range(key, true, null, true));
 	}
 
 	public LinkedList<Pointer<TKey,TValue>> getNotEqualKeys(TKey key){
-		LinkedList<Pointer<TKey,TValue>> list = new LinkedList<>();
-		BTreeLeafNode<TKey, TValue> currentNode = getFirstLeafNodeOnLeft();
-		do{
-			for (int i = 0; i < currentNode.getKeyCount(); i++) {
-				if(currentNode.getKey(i).compareTo(key) != 0) {
-					for (int j = 0; j < currentNode.getValue(i).size(); j++) {
-						list.add(new Pointer<>(currentNode.getKey(i), currentNode.getValue(i).get(j)));
-					}
-				}
-			}
-			currentNode = currentNode.getRightSibling();
-		}while (currentNode != null);
+		LinkedList<Pointer<TKey,TValue>> list = toPointers(range(null, true, key, false));
+		list.addAll(toPointers(range(key, false, null, true)));
 		return list;
 	}
 
@@ -193,24 +392,38 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 	}
 
 	public LinkedList<Pointer<TKey,TValue>> getEqualKeys(TKey key){
+		return toPointers(range(key, true, key, true));
+	}
+
+	private LinkedList<Pointer<TKey,TValue>> toPointers(BTreeCursor<TKey, TValue> cursor) {
 		LinkedList<Pointer<TKey,TValue>> list = new LinkedList<>();
-		Vector<TValue> vector = search(key);
-		for (TValue value : vector) {
-			list.add(new Pointer<>(key, value));
+		while (cursor.hasNext()) {
+			TKey key = cursor.next();
+			for (TValue value : cursor.values()) {
+				list.add(new Pointer<>(key, value));
+			}
 		}
 		return list;
 	}
 
 	public int getPageNumberForInsert(TKey primaryKey){
+		try {
+			return findPageNumberForInsert(primaryKey);
+		} finally {
+			store.release();
+		}
+	}
+
+	private int findPageNumberForInsert(TKey primaryKey){
 		BTreeLeafNode<TKey, TValue> currentNode = getLeafNodeBeforeKey(primaryKey);
 		int pageNumber = 0;
 		if(currentNode != null && currentNode.getRightSibling() == null && currentNode.getKey(currentNode.getKeyCount()-1).compareTo(primaryKey)<0) {
-			return Integer.parseInt(((Vector<String>) currentNode.getValue(currentNode.getKeyCount() - 1)).get(0).split("-")[0]);
+			return currentNode.getPageSerial(currentNode.getKeyCount() - 1);
 		}
 		while (currentNode!=null){
 			for (int i = 0; i < currentNode.getKeyCount(); i++) {
 				if(currentNode.getKey(i).compareTo(primaryKey) < 0){
-					pageNumber = Integer.parseInt(((Vector<String>) currentNode.getValue(i)).get(0).split("-")[0]);
+					pageNumber = currentNode.getPageSerial(i);
 				} else if(currentNode.getKey(i).compareTo(primaryKey) == 0){
 					return -1;
 				}else {
@@ -223,7 +436,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 	}
 
 	private BTreeLeafNode<TKey, TValue> getLeafNodeBeforeKey(TKey key) {
-		BTreeNode<TKey> currentNode = this.root;
+		BTreeNode<TKey> currentNode = this.getRoot();
 		BTreeLeafNode<TKey, TValue> prevLeafNode = null;
 
 		while (currentNode instanceof BTreeInnerNode<TKey> innerNode) {
@@ -247,7 +460,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 	 * Find the leaf node that contains the specified key.
 	 */
 	private BTreeLeafNode<TKey, TValue> getLeafNodeForMinVal(TKey key) {
-		BTreeNode<TKey> currentNode = this.root;
+		BTreeNode<TKey> currentNode = this.getRoot();
 
 		while (currentNode instanceof BTreeInnerNode<TKey> innerNode) {
 			int childIndex = innerNode.getChildIndex(key);
@@ -264,7 +477,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 	}
 
 	public BTreeLeafNode<TKey, TValue> getFirstLeafNodeOnLeft() {
-		BTreeNode<TKey> currentNode = this.root;
+		BTreeNode<TKey> currentNode = this.getRoot();
 
 		// Traverse towards the leftmost leaf node
 		while (currentNode instanceof BTreeInnerNode<TKey>) {
@@ -278,7 +491,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 	 * Search the leaf node which should contain the specified key
 	 */
 	private BTreeLeafNode<TKey, TValue> findLeafNodeShouldContainKey(TKey key) {
-		BTreeNode<TKey> node = this.root;
+		BTreeNode<TKey> node = this.getRoot();
 		while (node.getNodeType() == TreeNodeType.InnerNode) {
 			node = ((BTreeInnerNode<TKey>)node).getChild( node.search(key) );
 		}
@@ -293,7 +506,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		Queue<BTreeNode<TKey>> queue = new LinkedList<>();
-		queue.offer(root);
+		queue.offer(getRoot());
 
 		while (!queue.isEmpty()) {
 			int levelSize = queue.size();
@@ -331,7 +544,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 	public String toStringRangeValues() {
 		StringBuilder sb = new StringBuilder();
 		Queue<BTreeNode<TKey>> queue = new LinkedList<>();
-		queue.offer(root);
+		queue.offer(getRoot());
 
 		while (!queue.isEmpty()) {
 			int levelSize = queue.size();
@@ -365,4 +578,47 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements java.io.Ser
 
 		return result.toString();
 	}
+
+	@Serial
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (store == null) {
+			// The nodes of trees written by older versions link each other directly, give them ids in a store
+			store = new MemoryNodeStore<>();
+			IdentityHashMap<BTreeNode<TKey>, Boolean> nodes = new IdentityHashMap<>();
+			collectNodes(root, nodes);
+			for (BTreeNode<TKey> node : nodes.keySet()) {
+				store.add(node);
+			}
+			for (BTreeNode<TKey> node : nodes.keySet()) {
+				node.parentId = idOf(node.parentNode, nodes);
+				node.leftSiblingId = idOf(node.leftSibling, nodes);
+				node.rightSiblingId = idOf(node.rightSibling, nodes);
+				node.parentNode = node.leftSibling = node.rightSibling = null;
+				if (node instanceof BTreeInnerNode<TKey> innerNode) {
+					innerNode.childIds = new int[innerNode.children.length];
+					for (int i = 0; i < innerNode.children.length; i++) {
+						innerNode.childIds[i] = idOf((BTreeNode<TKey>) innerNode.children[i], nodes);
+					}
+					innerNode.children = null;
+				}
+			}
+			rootId = root.id;
+			root = null;
+		}
+	}
+
+	private static <TKey extends Comparable<TKey>> void collectNodes(BTreeNode<TKey> node, IdentityHashMap<BTreeNode<TKey>, Boolean> nodes) {
+		nodes.put(node, true);
+		if (node instanceof BTreeInnerNode<TKey> innerNode) {
+			for (int i = 0; i <= innerNode.keyCount; i++) {
+				collectNodes((BTreeNode<TKey>) innerNode.children[i], nodes);
+			}
+		}
+	}
+
+	// Links to nodes that aren't in the tree anymore are dropped
+	private static <TKey extends Comparable<TKey>> int idOf(BTreeNode<TKey> node, IdentityHashMap<BTreeNode<TKey>, Boolean> nodes) {
+		return node != null && nodes.containsKey(node) ? node.id : 0;
+	}
 }
@@ -0,0 +1,84 @@
+package BTree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+import java.util.function.LongConsumer;
+
+/**
+ * Lazy walk over the keys of a B+ tree between two bounds, see {@link BTree#range}.
+ * next() moves to the next key, the values of the current key are read with values() or forEachRecordId().
+ * Leaves are only visited when the walk reaches them and the walk stops at the first key past the upper bound.
+ */
+public class BTreeCursor<TKey extends Comparable<TKey>, TValue> implements Iterator<TKey> {
+	private final TKey hi;
+	private final boolean hiInclusive;
+	// Store of the tree, nodes the walk left behind can be evicted after every step
+	private final NodeStore<TKey> store;
+	// Leaf and position of the next key, the leaf is null once the walk is over
+	private BTreeLeafNode<TKey, TValue> leaf;
+	private int index;
+	// Leaf and position of the current key
+	private BTreeLeafNode<TKey, TValue> currentLeaf;
+	private int currentIndex;
+
+	BTreeCursor(BTreeLeafNode<TKey, TValue> leaf, int index, TKey hi, boolean hiInclusive) {
+		this.leaf = leaf;
+		this.index = index;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.store = leaf.store;
+		skipEmptyLeaves();
+		store.release();
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (leaf == null) {
+			return false;
+		}
+		if (hi != null) {
+			int cmp = leaf.getKey(index).compareTo(hi);
+			if (cmp > 0 || (cmp == 0 && !hiInclusive)) {
+				leaf = null;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public TKey next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		currentLeaf = leaf;
+		currentIndex = index;
+		index++;
+		skipEmptyLeaves();
+		store.release();
+		return currentLeaf.getKey(currentIndex);
+	}
+
+	// Values of the current key
+	public Vector<TValue> values() {
+		return currentLeaf.getValue(currentIndex);
+	}
+
+	// Method to pass the record ids of the current key to the action, only for trees storing record ids
+	public void forEachRecordId(LongConsumer action) {
+		currentLeaf.getRecordIds(currentIndex).forEach(action);
+	}
+
+	// Record ids of the current key as a posting list, only for trees storing record ids
+	public PostingList postings() {
+		return currentLeaf.getRecordIds(currentIndex).toPostingList();
+	}
+
+	private void skipEmptyLeaves() {
+		while (leaf != null && index >= leaf.getKeyCount()) {
+			leaf = leaf.getRightSibling();
+			index = 0;
+		}
+	}
+}
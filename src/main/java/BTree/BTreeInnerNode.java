@@ -3,24 +3,38 @@ package BTree;
 import Main.DBApp;
 
 class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
+	// Same as before the class evolved, so indices written by older versions can still be read
+	private static final long serialVersionUID = 2342348525158497294L;
+
 	protected final static int INNERORDER = DBApp.nodeOrder;
+	// Only set in nodes written before nodes were kept in a store, see childIds
 	protected Object[] children; 
+	protected int[] childIds;
 	
-	public BTreeInnerNode() {
+	public BTreeInnerNode(NodeStore<TKey> store) {
+		super(store);
 		this.keys = new Object[INNERORDER + 1];
-		this.children = new Object[INNERORDER + 2];
+		this.childIds = new int[INNERORDER + 2];
 	}
 	
-	@SuppressWarnings("unchecked")
 	public BTreeNode<TKey> getChild(int index) {
-		return (BTreeNode<TKey>)this.children[index];
+		return this.store.get(this.childIds[index]);
 	}
 
 	public void setChild(int index, BTreeNode<TKey> child) {
-		this.children[index] = child;
+		this.childIds[index] = child == null ? 0 : child.id;
+		this.markDirty();
 		if (child != null)
 			child.setParent(this);
 	}
+
+	// Method to find the position of a child, compares ids so the children don't have to be loaded
+	private int indexOfChild(BTreeNode<TKey> child, int limit) {
+		int index = 0;
+		while (index < limit && this.childIds[index] != child.id)
+			++index;
+		return index;
+	}
 	
 	@Override
 	public TreeNodeType getNodeType() {
@@ -29,27 +43,14 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 	
 	@Override
 	public int search(TKey key) {
-		int index;
-		for (index = 0; index < this.getKeyCount(); ++index) {
-			int cmp = this.getKey(index).compareTo(key);
-			if (cmp == 0) {
-				return index + 1;
-			}
-			else if (cmp > 0) {
-				return index;
-			}
-		}
-
-		return index;
+		// Keys equal to a separator are in the child on its right
+		int index = this.findKey(key);
+		return index >= 0 ? index + 1 : -index - 1;
 	}
-	
+
+	// Method to get the position of the last key less than or equal to the given key, -1 if there is none
 	public int getChildIndex(TKey key){
-		for(int i = keys.length-1;i>=0;i--){
-			if(keys[i] != null && key.compareTo((TKey) keys[i])>=0){
-				return i;
-			}
-		}
-		return -1;
+		return this.search(key) - 1;
 	}
 
 
@@ -78,14 +79,13 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 	protected BTreeNode<TKey> split() {
 		int midIndex = this.getKeyCount() / 2;
 		
-		BTreeInnerNode<TKey> newRNode = new BTreeInnerNode<TKey>();
+		BTreeInnerNode<TKey> newRNode = new BTreeInnerNode<TKey>(this.store);
 		for (int i = midIndex + 1; i < this.getKeyCount(); ++i) {
 			newRNode.setKey(i - midIndex - 1, this.getKey(i));
 			this.setKey(i, null);
 		}
 		for (int i = midIndex + 1; i <= this.getKeyCount(); ++i) {
 			newRNode.setChild(i - midIndex - 1, this.getChild(i));
-			newRNode.getChild(i - midIndex - 1).setParent(newRNode);
 			this.setChild(i, null);
 		}
 		this.setKey(midIndex, null);
@@ -127,13 +127,25 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 		this.setChild(i + 1, null);
 		--this.keyCount;
 	}
+
+	// Method to remove the first key along with the child on its left, deleteAt keeps the left child
+	private void deleteFirst() {
+		int i;
+		for (i = 0; i < this.getKeyCount() - 1; ++i) {
+			this.setKey(i, this.getKey(i + 1));
+		}
+		this.setKey(i, null);
+		for (i = 0; i < this.getKeyCount(); ++i) {
+			this.setChild(i, this.getChild(i + 1));
+		}
+		this.setChild(i, null);
+		--this.keyCount;
+	}
 	
 	
 	@Override
 	protected void processChildrenTransfer(BTreeNode<TKey> borrower, BTreeNode<TKey> lender, int borrowIndex) {
-		int borrowerChildIndex = 0;
-		while (borrowerChildIndex < this.getKeyCount() + 1 && this.getChild(borrowerChildIndex) != borrower)
-			++borrowerChildIndex;
+		int borrowerChildIndex = this.indexOfChild(borrower, this.getKeyCount() + 1);
 		
 		if (borrowIndex == 0) {
 			// borrow a key from the right sibling
@@ -149,9 +161,7 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 	
 	@Override
 	protected BTreeNode<TKey> processChildrenFusion(BTreeNode<TKey> leftChild, BTreeNode<TKey> rightChild) {
-		int index = 0;
-		while (index < this.getKeyCount() && this.getChild(index) != leftChild)
-			++index;
+		int index = this.indexOfChild(leftChild, this.getKeyCount());
 		TKey sinkKey = this.getKey(index);
 		
 		// merge two children and the sink key into the left child node
@@ -159,6 +169,7 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 		
 		// remove the sink key, keep the left child and abandon the right child
 		this.deleteAt(index);
+		this.store.remove(rightChild);
 		
 		// check whether you need to propagate borrow or fusion to parent
 		if (this.isUnderflow()) {
@@ -166,6 +177,7 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 				// the current node is root, only remove keys or delete the whole root node
 				if (this.getKeyCount() == 0) {
 					leftChild.setParent(null);
+					this.store.remove(this);
 					return leftChild;
 				}
 				else {
@@ -195,9 +207,10 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 		}
 		this.keyCount += 1 + rightSiblingNode.getKeyCount();
 		
-		this.setRightSibling(rightSiblingNode.rightSibling);
-		if (rightSiblingNode.rightSibling != null)
-			rightSiblingNode.rightSibling.setLeftSibling(this);
+		BTreeNode<TKey> rightNode = rightSiblingNode.getRightNode();
+		this.setRightSibling(rightNode);
+		if (rightNode != null)
+			rightNode.setLeftSibling(this);
 	}
 	
 	@Override
@@ -213,7 +226,7 @@ class BTreeInnerNode<TKey extends Comparable<TKey>> extends BTreeNode<TKey>{
 			this.keyCount += 1;
 			
 			upKey = siblingNode.getKey(0);
-			siblingNode.deleteAt(borrowIndex);
+			siblingNode.deleteFirst();
 		}
 		else {
 			// borrow the last key from the left sibling, insert it to head
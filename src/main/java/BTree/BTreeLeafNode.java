@@ -5,28 +5,78 @@ import Main.DBApp;
 import java.util.Vector;
 
 class BTreeLeafNode<TKey extends Comparable<TKey>, TValue> extends BTreeNode<TKey> {
+	// Same as before the class evolved, so indices written by older versions can still be read
+	private static final long serialVersionUID = 2748990988251359063L;
+
 	protected final static int LEAFORDER = DBApp.nodeOrder;
+	// Null in leaves of trees storing record ids
 	private final Vector<TValue>[] values;
+	// Used instead of values by trees storing record ids, null in leaves written by older versions
+	private final RecordIds[] recordIds;
 
-	public BTreeLeafNode() {
+	public BTreeLeafNode(NodeStore<TKey> store, boolean storesRecordIds) {
+		super(store);
 		this.keys = new Object[LEAFORDER + 1];
-		this.values = new Vector[LEAFORDER + 1];
+		this.values = storesRecordIds ? null : new Vector[LEAFORDER + 1];
+		this.recordIds = storesRecordIds ? new RecordIds[LEAFORDER + 1] : null;
+	}
+
+	public boolean storesRecordIds() {
+		return this.recordIds != null;
 	}
 
+	// Record ids are formatted as strings, use getRecordIds to read them without allocating strings
 	public Vector<TValue> getValue(int index) {
-		return this.values[index];
+		return storesRecordIds() ? (Vector<TValue>) this.recordIds[index].toValues() : this.values[index];
 	}
 
 	public void setValue(int index, Vector<TValue> value) {
 		this.values[index] = value;
+		this.markDirty();
+	}
+
+	RecordIds getRecordIds(int index) {
+		return this.recordIds[index];
+	}
+
+	// The values of a key as they are stored, a Vector of values or the record ids of the key
+	Object getEntry(int index) {
+		return storesRecordIds() ? this.recordIds[index] : this.values[index];
+	}
+
+	void setEntry(int index, Object entry) {
+		if (storesRecordIds()) {
+			this.recordIds[index] = (RecordIds) entry;
+		} else {
+			// Leaves not storing record ids only ever get the value vectors of their entries
+			@SuppressWarnings("unchecked")
+			Vector<TValue> values = (Vector<TValue>) entry;
+			this.values[index] = values;
+		}
+		this.markDirty();
+	}
+
+	// Method to get the page serial of the first value of a key
+	public int getPageSerial(int index) {
+		if (storesRecordIds()) {
+			return RecordId.pageSerial(this.recordIds[index].first());
+		}
+		String value = (String) this.values[index].get(0);
+		return Integer.parseInt(value.substring(0, value.indexOf('-')));
 	}
 
-	public void addValueToVector(int index, TValue value) {
-		this.values[index].add(findIndexToInsertIn((String) value,index),value);
+	// Values of the form "page serial-clustering key" are kept ordered by page, other values are appended
+	public void addValueToVector(int index, TValue value, boolean orderByPage) {
+		if (orderByPage) {
+			this.values[index].add(findIndexToInsertIn((String) value,index),value);
+		} else {
+			this.values[index].add(value);
+		}
+		this.markDirty();
 	}
 
 	public BTreeLeafNode<TKey, TValue> getRightSibling() {
-		return (BTreeLeafNode<TKey, TValue>) this.rightSibling;
+		return (BTreeLeafNode<TKey, TValue>) this.getRightNode();
 	}
 
 	@Override
@@ -36,73 +86,58 @@ class BTreeLeafNode<TKey extends Comparable<TKey>, TValue> extends BTreeNode<TKe
 
 	@Override
 	public int search(TKey key) {
-		for (int i = 0; i < this.getKeyCount(); ++i) {
-			 int cmp = this.getKey(i).compareTo(key);
-			 if (cmp == 0) {
-				 return i;
-			 }
-			 else if (cmp > 0) {
-				 return -1;
-			 }
-		}
-
-		return -1;
+		int index = this.findKey(key);
+		return index >= 0 ? index : -1;
 	}
 
 	public int search(TKey key, TValue value) {
-		int low = 0;
-		int high = this.getKeyCount() - 1;
-
-		while (low <= high) {
-			int mid = low + (high - low) / 2;
-			int cmp = this.getKey(mid).compareTo(key);
-
-			if (cmp == 0 && this.getValue(mid).contains(value)) {
-				return mid; // Key found
-			} else if (cmp < 0) {
-				low = mid + 1; // Search in the right half
-			} else {
-				high = mid - 1; // Search in the left half
-			}
-		}
-
-		return -1; // Key not found
+		// Keys are unique in a leaf, the values of a key are all in its entry
+		int index = this.search(key);
+		return index != -1 && this.getValue(index).contains(value) ? index : -1;
 	}
 
 
 	/* The codes below are used to support insertion operation */
 
-	public void insertKey(TKey key, TValue value) {
-		int i = search(key);
-		if (i != -1) {
-			addValueToVector(i, value);
+	// A single binary search finds either the entry of an existing key or the position of a new one
+	public void insertKey(TKey key, TValue value, boolean orderByPage) {
+		int index = this.findKey(key);
+		if (index >= 0) {
+			addValueToVector(index, value, orderByPage);
 			return;
 		}
-		int index = 0;
-		while (index < this.getKeyCount() && this.getKey(index).compareTo(key) < 0)
-			++index;
 		Vector<TValue> v = new Vector<>();
 		v.add(value);
-		this.insertAt(index, key, v);
+		this.insertAt(-index - 1, key, v);
+	}
+
+	public void insertRecordId(TKey key, long recordId) {
+		int index = this.findKey(key);
+		if (index >= 0) {
+			this.recordIds[index].add(recordId);
+			this.markDirty();
+			return;
+		}
+		RecordIds ids = new RecordIds();
+		ids.add(recordId);
+		this.insertAt(-index - 1, key, ids);
 	}
 
-	public void insertKeyVector(TKey key, Vector<TValue> value) {
-		int index = 0;
-		while (index < this.getKeyCount() && this.getKey(index).compareTo(key) < 0)
-			++index;
-		this.insertAt(index, key, value);
+	private void insertKeyEntry(TKey key, Object entry) {
+		int index = this.findKey(key);
+		this.insertAt(index >= 0 ? index : -index - 1, key, entry);
 	}
 
-	private void insertAt(int index, TKey key, Vector<TValue> value) {
+	private void insertAt(int index, TKey key, Object entry) {
 		// move space for the new key
 		for (int i = this.getKeyCount() - 1; i >= index; --i) {
 			this.setKey(i + 1, this.getKey(i));
-			this.setValue(i + 1, this.getValue(i));
+			this.setEntry(i + 1, this.getEntry(i));
 		}
 
 		// insert new key and value
 		this.setKey(index, key);
-		this.setValue(index, value);
+		this.setEntry(index, entry);
 		++this.keyCount;
 	}
 
@@ -113,13 +148,12 @@ class BTreeLeafNode<TKey extends Comparable<TKey>, TValue> extends BTreeNode<TKe
 		while (left <= right) {
 			int mid = left + (right - left) / 2;
 			String midString = (String) values[index].get(mid);
-			String[] parts = midString.split("-");
-			int pageNum = Integer.parseInt(parts[0]);
-			Object primaryKey = parseObject(parts[1]);
+			int pageNum = Integer.parseInt(midString.substring(0, midString.indexOf('-')));
+			Object primaryKey = parseObject(midString.substring(midString.indexOf('-') + 1));
 
-			String[] newParts = newString.split("-");
-			int newPageNum = Integer.parseInt(newParts[0]);
-			int newPrimaryKey = Integer.parseInt(newParts[1]);
+			// The clustering key can contain '-' too, only the first one separates it from the page serial
+			int newPageNum = Integer.parseInt(newString.substring(0, newString.indexOf('-')));
+			Object newPrimaryKey = parseObject(newString.substring(newString.indexOf('-') + 1));
 
 			if (pageNum < newPageNum || (pageNum == newPageNum && compareTwoValues(primaryKey, newPrimaryKey, primaryKey.getClass().getName()) < 0)) {
 				left = mid + 1;
@@ -169,12 +203,12 @@ class BTreeLeafNode<TKey extends Comparable<TKey>, TValue> extends BTreeNode<TKe
 	protected BTreeNode<TKey> split() {
 		int midIndex = this.getKeyCount() / 2;
 
-		BTreeLeafNode<TKey, TValue> newRNode = new BTreeLeafNode<TKey, TValue>();
+		BTreeLeafNode<TKey, TValue> newRNode = new BTreeLeafNode<TKey, TValue>(this.store, storesRecordIds());
 		for (int i = midIndex; i < this.getKeyCount(); ++i) {
 			newRNode.setKey(i - midIndex, this.getKey(i));
-			newRNode.setValue(i - midIndex, this.getValue(i));
+			newRNode.setEntry(i - midIndex, this.getEntry(i));
 			this.setKey(i, null);
-			this.setValue(i, null);
+			this.setEntry(i, null);
 		}
 		newRNode.keyCount = this.getKeyCount() - midIndex;
 		this.keyCount = midIndex;
@@ -207,20 +241,31 @@ class BTreeLeafNode<TKey extends Comparable<TKey>, TValue> extends BTreeNode<TKe
 			return false;
 		if (this.getValue(index).size() > 1) {
 			this.getValue(index).remove(value);
+			this.markDirty();
 			return true;
 		}
 		this.deleteAt(index);
 		return true;
 	}
 
+	public boolean deleteRecordId(TKey key, long recordId) {
+		int index = this.search(key);
+		if (index == -1 || !this.recordIds[index].remove(recordId))
+			return false;
+		if (this.recordIds[index].size() == 0)
+			this.deleteAt(index);
+		this.markDirty();
+		return true;
+	}
+
 	private void deleteAt(int index) {
 		int i;
 		for (i = index; i < this.getKeyCount() - 1; ++i) {
 			this.setKey(i, this.getKey(i + 1));
-			this.setValue(i, this.getValue(i + 1));
+			this.setEntry(i, this.getEntry(i + 1));
 		}
 		this.setKey(i, null);
-		this.setValue(i, null);
+		this.setEntry(i, null);
 		--this.keyCount;
 	}
 
@@ -244,20 +289,21 @@ class BTreeLeafNode<TKey extends Comparable<TKey>, TValue> extends BTreeNode<TKe
 		int j = this.getKeyCount();
 		for (int i = 0; i < siblingLeaf.getKeyCount(); ++i) {
 			this.setKey(j + i, siblingLeaf.getKey(i));
-			this.setValue(j + i, siblingLeaf.getValue(i));
+			this.setEntry(j + i, siblingLeaf.getEntry(i));
 		}
 		this.keyCount += siblingLeaf.getKeyCount();
 
-		this.setRightSibling(siblingLeaf.rightSibling);
-		if (siblingLeaf.rightSibling != null)
-			siblingLeaf.rightSibling.setLeftSibling(this);
+		BTreeNode<TKey> rightNode = siblingLeaf.getRightNode();
+		this.setRightSibling(rightNode);
+		if (rightNode != null)
+			rightNode.setLeftSibling(this);
 	}
 
 	@Override
 	protected TKey transferFromSibling(TKey sinkKey, BTreeNode<TKey> sibling, int borrowIndex) {
 		BTreeLeafNode<TKey, TValue> siblingNode = (BTreeLeafNode<TKey, TValue>)sibling;
 
-		this.insertKeyVector(siblingNode.getKey(borrowIndex), siblingNode.getValue(borrowIndex));
+		this.insertKeyEntry(siblingNode.getKey(borrowIndex), siblingNode.getEntry(borrowIndex));
 		siblingNode.deleteAt(borrowIndex);
 
 		return borrowIndex == 0 ? sibling.getKey(0) : this.getKey(0);
@@ -267,7 +313,7 @@ class BTreeLeafNode<TKey extends Comparable<TKey>, TValue> extends BTreeNode<TKe
 	public String toString() {
 		StringBuilder s = new StringBuilder();
 		for (int i = 0; i < this.getKeyCount(); ++i)
-			s.append("(").append(this.getKey(i)).append(", ").append(this.getValue(i)).append(") ");
+			s.append("(").append(this.getKey(i)).append(", ").append(this.getEntry(i)).append(") ");
 		return s.toString();
 	}
 }
@@ -8,18 +8,30 @@ enum TreeNodeType {
 }
 
 abstract class BTreeNode<TKey extends Comparable<TKey>> implements Serializable {
+	// Same as before the class evolved, so indices written by older versions can still be read
+	private static final long serialVersionUID = -1951823428099871241L;
+
 	protected Object[] keys;
 	protected int keyCount;
+	// Only set in nodes written before nodes were kept in a store, BTree turns them into ids when it's read
 	protected BTreeNode<TKey> parentNode;
 	protected BTreeNode<TKey> leftSibling;
 	protected BTreeNode<TKey> rightSibling;
-	
+	// Ids of the node and of the nodes it's linked to in the store of the tree, 0 means no node
+	protected int id;
+	protected int parentId;
+	protected int leftSiblingId;
+	protected int rightSiblingId;
+	protected transient NodeStore<TKey> store;
 
-	protected BTreeNode() {
+	protected BTreeNode(NodeStore<TKey> store) {
 		this.keyCount = 0;
-		this.parentNode = null;
-		this.leftSibling = null;
-		this.rightSibling = null;
+		store.add(this);
+	}
+
+	// Method to tell the store the node changed, every setter calls it
+	protected void markDirty() {
+		this.store.markDirty(this);
 	}
 
 	public int getKeyCount() {
@@ -33,14 +45,16 @@ abstract class BTreeNode<TKey extends Comparable<TKey>> implements Serializable
 
 	public void setKey(int index, TKey key) {
 		this.keys[index] = key;
+		this.markDirty();
 	}
 
 	public BTreeNode<TKey> getParent() {
-		return this.parentNode;
+		return this.store.get(this.parentId);
 	}
 
 	public void setParent(BTreeNode<TKey> parent) {
-		this.parentNode = parent;
+		this.parentId = parent == null ? 0 : parent.id;
+		this.markDirty();
 	}	
 	
 	public abstract TreeNodeType getNodeType();
@@ -52,6 +66,27 @@ abstract class BTreeNode<TKey extends Comparable<TKey>> implements Serializable
 	 * return the child node index which should contain the key for an internal node.
 	 */
 	public abstract int search(TKey key);
+
+	/**
+	 * Binary search of a key among the keys of the node.
+	 * @return the position of the key if it exists, otherwise -(position it should be inserted at) - 1
+	 */
+	protected int findKey(TKey key) {
+		int low = 0;
+		int high = this.getKeyCount() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = this.getKey(mid).compareTo(key);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
 	
 	
 	
@@ -68,15 +103,16 @@ abstract class BTreeNode<TKey extends Comparable<TKey>> implements Serializable
 		BTreeNode<TKey> newRNode = this.split();
 				
 		if (this.getParent() == null) {
-			this.setParent(new BTreeInnerNode<TKey>());
+			this.setParent(new BTreeInnerNode<TKey>(this.store));
 		}
 		newRNode.setParent(this.getParent());
 		
 		// maintain links of sibling nodes
+		BTreeNode<TKey> rightNode = this.getRightNode();
 		newRNode.setLeftSibling(this);
-		newRNode.setRightSibling(this.rightSibling);
-		if (this.getRightSibling() != null)
-			this.getRightSibling().setLeftSibling(newRNode);
+		newRNode.setRightSibling(rightNode);
+		if (rightNode != null)
+			rightNode.setLeftSibling(newRNode);
 		this.setRightSibling(newRNode);
 		
 		// push up a key to parent internal node
@@ -103,23 +139,32 @@ abstract class BTreeNode<TKey extends Comparable<TKey>> implements Serializable
 	}
 	
 	public BTreeNode<TKey> getLeftSibling() {
-		if (this.leftSibling != null && this.leftSibling.getParent() == this.getParent())
-			return this.leftSibling;
+		BTreeNode<TKey> leftNode = this.store.get(this.leftSiblingId);
+		if (leftNode != null && leftNode.parentId == this.parentId)
+			return leftNode;
 		return null;
 	}
 
 	public void setLeftSibling(BTreeNode<TKey> sibling) {
-		this.leftSibling = sibling;
+		this.leftSiblingId = sibling == null ? 0 : sibling.id;
+		this.markDirty();
 	}
 
 	public BTreeNode<TKey> getRightSibling() {
-		if (this.rightSibling != null && this.rightSibling.getParent() == this.getParent())
-			return this.rightSibling;
+		BTreeNode<TKey> rightNode = this.getRightNode();
+		if (rightNode != null && rightNode.parentId == this.parentId)
+			return rightNode;
 		return null;
 	}
 
+	// The next node on the same level, even if it has another parent
+	protected BTreeNode<TKey> getRightNode() {
+		return this.store.get(this.rightSiblingId);
+	}
+
 	public void setRightSibling(BTreeNode<TKey> sibling) {
-		this.rightSibling = sibling;
+		this.rightSiblingId = sibling == null ? 0 : sibling.id;
+		this.markDirty();
 	}
 	
 	public BTreeNode<TKey> dealUnderflow() {
@@ -133,7 +178,10 @@ abstract class BTreeNode<TKey extends Comparable<TKey>> implements Serializable
 			return null;
 		}
 		
-		BTreeNode<TKey> rightSibling = this.getRightSibling();
+		// Leaves override getRightSibling to walk across parents, borrowing needs the same parent
+		BTreeNode<TKey> rightSibling = this.getRightNode();
+		if (rightSibling != null && rightSibling.parentId != this.parentId)
+			rightSibling = null;
 		if (rightSibling != null && rightSibling.canLendAKey()) {
 			this.getParent().processChildrenTransfer(this, rightSibling, 0);
 			return null;
@@ -0,0 +1,92 @@
+package BTree;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * The key of an index over several columns, the values of the columns are compared one after the other.
+ * Range bounds may be shorter than the keys of the index, such a bound stands right before or right after
+ * every key starting with its values, so the keys sharing a prefix are walked with a single range.
+ * Null values sort before any other value.
+ */
+public final class CompositeKey implements Comparable<CompositeKey>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] values;
+    // -1 for a bound before the keys it's a prefix of, 1 for a bound after them, 0 for the keys stored in an index
+    private final int side;
+
+    private CompositeKey(Object[] values, int side) {
+        this.values = values;
+        this.side = side;
+    }
+
+    public static CompositeKey of(Object... values) {
+        return new CompositeKey(values, 0);
+    }
+
+    // Method to get a bound below every key starting with the values
+    public static CompositeKey lowerBound(Object... prefix) {
+        return new CompositeKey(prefix, -1);
+    }
+
+    // Method to get a bound above every key starting with the values
+    public static CompositeKey upperBound(Object... prefix) {
+        return new CompositeKey(prefix, 1);
+    }
+
+    public Object get(int i) {
+        return values[i];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public int compareTo(CompositeKey other) {
+        for (int i = 0; i < Math.min(values.length, other.values.length); i++) {
+            int cmp = compareValues(values[i], other.values[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        if (values.length == other.values.length) {
+            return Integer.compare(side, other.side);
+        }
+        // One key is a prefix of the other, the shorter one decides on which side it is
+        if (values.length < other.values.length) {
+            return side == 0 ? -1 : side;
+        }
+        return other.side == 0 ? 1 : -other.side;
+    }
+
+    // The values at a position are from the same column, so they compare with each other
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object value1, Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == null ? (value2 == null ? 0 : -1) : 1;
+        }
+        return ((Comparable<Object>) value1).compareTo(value2);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompositeKey other && side == other.side && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(values) + side;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "(", ")");
+        for (Object value : values) {
+            joiner.add(String.valueOf(value));
+        }
+        return joiner.toString();
+    }
+}
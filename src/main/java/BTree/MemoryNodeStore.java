@@ -0,0 +1,50 @@
+package BTree;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.util.HashMap;
+
+/**
+ * Keeps every node of a tree in memory, they are serialized along with the tree.
+ */
+class MemoryNodeStore<TKey extends Comparable<TKey>> extends NodeStore<TKey> {
+    private static final long serialVersionUID = 1L;
+
+    private final HashMap<Integer, BTreeNode<TKey>> nodes = new HashMap<>();
+    private int nextId = 1;
+
+    @Override
+    BTreeNode<TKey> get(int id) {
+        return id == 0 ? null : nodes.get(id);
+    }
+
+    @Override
+    void add(BTreeNode<TKey> node) {
+        node.id = nextId++;
+        node.store = this;
+        nodes.put(node.id, node);
+    }
+
+    @Override
+    void markDirty(BTreeNode<TKey> node) {
+    }
+
+    @Override
+    void remove(BTreeNode<TKey> node) {
+        nodes.remove(node.id);
+    }
+
+    @Override
+    void clear() {
+        nodes.clear();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (BTreeNode<TKey> node : nodes.values()) {
+            node.store = this;
+        }
+    }
+}
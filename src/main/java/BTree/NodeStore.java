@@ -0,0 +1,34 @@
+package BTree;
+
+import java.io.Serializable;
+
+/**
+ * Where the nodes of a B+ tree live. Nodes refer to each other by id, 0 meaning no node,
+ * and every step from a node to another one goes through the store of the tree.
+ */
+abstract class NodeStore<TKey extends Comparable<TKey>> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Method to get a node by its id, null for id 0
+    abstract BTreeNode<TKey> get(int id);
+
+    // Method to give a new node its id and keep it in the store
+    abstract void add(BTreeNode<TKey> node);
+
+    // Method to record that a node changed and has to be written back
+    abstract void markDirty(BTreeNode<TKey> node);
+
+    // Method to drop a node that isn't part of the tree anymore
+    abstract void remove(BTreeNode<TKey> node);
+
+    // Method to drop every node of the tree
+    abstract void clear();
+
+    // Called when a tree operation is over, no node is referenced by the tree anymore so the cache can be trimmed
+    void release() {
+    }
+
+    // Method to write back every modified node
+    void flush() {
+    }
+}
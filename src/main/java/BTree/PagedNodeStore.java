@@ -0,0 +1,175 @@
+package BTree;
+
+import Main.DBApp;
+import Utilities.PageFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the nodes of a tree in their own page file, node id n lives in slot n.
+ * Nodes are read on demand into a cache of at most IndexCacheNodes nodes and a node is only
+ * written back if it was modified, when it's evicted or when the store is flushed.
+ * Only the file name and the free ids are serialized with the tree.
+ */
+class PagedNodeStore<TKey extends Comparable<TKey>> extends NodeStore<TKey> {
+    private static final long serialVersionUID = 1L;
+
+    private final String fileName;
+    private int nextId = 1;
+    // Ids of removed nodes, reused before the file grows
+    private final ArrayList<Integer> freeIds = new ArrayList<>();
+    // Access ordered so the eldest entry is always the least recently used node
+    private transient LinkedHashMap<Integer, BTreeNode<TKey>> cache;
+    private transient HashSet<Integer> dirty;
+
+    // Any previous file at the path belongs to a tree that was replaced, so the store starts empty
+    PagedNodeStore(String fileName) {
+        this.fileName = fileName;
+        try {
+            PageFile.delete(Path.of(fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LinkedHashMap<Integer, BTreeNode<TKey>> cache() {
+        if (cache == null) {
+            cache = new LinkedHashMap<>(16, 0.75f, true);
+            dirty = new HashSet<>();
+        }
+        return cache;
+    }
+
+    // Looked up every time so the store keeps working after the files of the table were closed
+    private PageFile file() throws IOException {
+        return PageFile.of(Path.of(fileName), 1024);
+    }
+
+    @Override
+    BTreeNode<TKey> get(int id) {
+        if (id == 0) {
+            return null;
+        }
+        BTreeNode<TKey> node = cache().get(id);
+        if (node == null) {
+            node = read(id);
+            cache.put(id, node);
+        }
+        return node;
+    }
+
+    @Override
+    void add(BTreeNode<TKey> node) {
+        node.id = freeIds.isEmpty() ? nextId++ : freeIds.remove(freeIds.size() - 1);
+        node.store = this;
+        cache().put(node.id, node);
+        dirty.add(node.id);
+    }
+
+    @Override
+    void markDirty(BTreeNode<TKey> node) {
+        BTreeNode<TKey> cached = cache().get(node.id);
+        if (cached == node) {
+            dirty.add(node.id);
+            return;
+        }
+        // The node was evicted while the caller still held it, so it's written through instead of being cached again
+        // next to a copy that may have been read from the file since, an unmodified copy is dropped so it's read again
+        write(node);
+        if (cached != null && !dirty.contains(node.id)) {
+            cache.remove(node.id);
+        }
+    }
+
+    @Override
+    void remove(BTreeNode<TKey> node) {
+        cache().remove(node.id);
+        dirty.remove(node.id);
+        freeIds.add(node.id);
+        try {
+            file().delete(node.id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    void clear() {
+        cache().clear();
+        dirty.clear();
+        freeIds.clear();
+        nextId = 1;
+        try {
+            PageFile.delete(Path.of(fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    void release() {
+        Iterator<Map.Entry<Integer, BTreeNode<TKey>>> iterator = cache().entrySet().iterator();
+        int excess = cache.size() - Math.max(DBApp.indexCacheNodes, 1);
+        while (excess-- > 0) {
+            BTreeNode<TKey> node = iterator.next().getValue();
+            if (dirty.remove(node.id)) {
+                write(node);
+            }
+            iterator.remove();
+        }
+    }
+
+    @Override
+    void flush() {
+        for (int id : dirty) {
+            write(cache().get(id));
+        }
+        dirty.clear();
+    }
+
+    private BTreeNode<TKey> read(int id) {
+        try {
+            ByteBuffer buffer = file().read(id);
+            if (buffer == null) {
+                throw new IOException("Missing node " + id + " in " + fileName);
+            }
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                // Only nodes of this tree are written to its file
+                @SuppressWarnings("unchecked")
+                BTreeNode<TKey> node = (BTreeNode<TKey>) in.readObject();
+                node.store = this;
+                return node;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write(BTreeNode<TKey> node) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(node);
+            }
+            file().write(node.id, bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package BTree;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.StringJoiner;
+import java.util.function.LongConsumer;
+
+/**
+ * A sorted set of record ids compressed in blocks of at most BLOCK_SIZE ids.
+ * A block keeps its first id as is and the gaps between the following ids as variable length
+ * unsigned numbers, 7 bits per byte, so the ids of a duplicate-heavy key mostly take one or two bytes each.
+ * Adding, removing or finding an id only decodes the block it falls in,
+ * and(), or() merge two lists block by block without going through the tree.
+ * Lists handed out of the package are read only, they may be the lists stored in the leaves.
+ */
+public final class PostingList implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final int BLOCK_SIZE = 128;
+
+    private long[] firstIds = new long[1];
+    private byte[][] blocks = new byte[1][];
+    private int[] blockSizes = new int[1];
+    private int blockCount;
+    private int size;
+
+    public PostingList() {
+    }
+
+    // Method to build a list from ids in any order, duplicates are kept once
+    public static PostingList of(long[] ids, int count) {
+        long[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return ofSorted(sorted, distinct);
+    }
+
+    private static PostingList ofSorted(long[] ids, int count) {
+        PostingList list = new PostingList();
+        for (int from = 0; from < count; from += BLOCK_SIZE) {
+            list.insertBlock(list.blockCount, ids, from, Math.min(BLOCK_SIZE, count - from));
+        }
+        list.size = count;
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long first() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return firstIds[0];
+    }
+
+    public boolean contains(long id) {
+        if (size == 0) {
+            return false;
+        }
+        int block = findBlock(id);
+        return Arrays.binarySearch(decode(block), id) >= 0;
+    }
+
+    // Method to add an id, returns false if it was already there
+    boolean add(long id) {
+        if (size == 0) {
+            insertBlock(0, new long[] { id }, 0, 1);
+            size = 1;
+            return true;
+        }
+        int block = findBlock(id);
+        long[] ids = decode(block);
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        long[] newIds = new long[ids.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, index);
+        newIds[index] = id;
+        System.arraycopy(ids, index, newIds, index + 1, ids.length - index);
+        if (newIds.length > BLOCK_SIZE) {
+            // A full block is split in two halves so later adds to either half don't split again right away
+            int half = newIds.length / 2;
+            encode(block, newIds, 0, half);
+            insertBlock(block + 1, newIds, half, newIds.length - half);
+        } else {
+            encode(block, newIds, 0, newIds.length);
+        }
+        size++;
+        return true;
+    }
+
+    // Method to remove an id, returns false if it wasn't there
+    boolean remove(long id) {
+        if (size == 0) {
+            return false;
+        }
+        int block = findBlock(id);
+        long[] ids = decode(block);
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return false;
+        }
+        if (ids.length == 1) {
+            removeBlock(block);
+        } else {
+            long[] newIds = new long[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+            encode(block, newIds, 0, newIds.length);
+        }
+        size--;
+        return true;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (int block = 0; block < blockCount; block++) {
+            for (long id : decode(block)) {
+                action.accept(id);
+            }
+        }
+    }
+
+    // Decodes one block at a time
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int block;
+            private long[] ids = blockCount == 0 ? new long[0] : decode(0);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < ids.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long id = ids[index++];
+                if (index == ids.length && block + 1 < blockCount) {
+                    ids = decode(++block);
+                    index = 0;
+                }
+                return id;
+            }
+        };
+    }
+
+    public long[] toArray() {
+        long[] ids = new long[size];
+        int[] next = { 0 };
+        forEach(id -> ids[next[0]++] = id);
+        return ids;
+    }
+
+    // Method to get the ids that are in both lists, neither list is modified
+    public PostingList and(PostingList other) {
+        long[] ids = new long[Math.min(size, other.size)];
+        int count = 0;
+        PrimitiveIterator.OfLong left = iterator();
+        PrimitiveIterator.OfLong right = other.iterator();
+        if (left.hasNext() && right.hasNext()) {
+            long a = left.nextLong();
+            long b = right.nextLong();
+            while (true) {
+                if (a == b) {
+                    ids[count++] = a;
+                    if (!left.hasNext() || !right.hasNext()) {
+                        break;
+                    }
+                    a = left.nextLong();
+                    b = right.nextLong();
+                } else if (a < b) {
+                    if (!left.hasNext()) {
+                        break;
+                    }
+                    a = left.nextLong();
+                } else {
+                    if (!right.hasNext()) {
+                        break;
+                    }
+                    b = right.nextLong();
+                }
+            }
+        }
+        return ofSorted(ids, count);
+    }
+
+    // Method to get the ids that are in either list, neither list is modified
+    public PostingList or(PostingList other) {
+        long[] ids = new long[size + other.size];
+        int count = 0;
+        PrimitiveIterator.OfLong left = iterator();
+        PrimitiveIterator.OfLong right = other.iterator();
+        long a = left.hasNext() ? left.nextLong() : 0;
+        long b = right.hasNext() ? right.nextLong() : 0;
+        boolean hasA = size > 0;
+        boolean hasB = other.size > 0;
+        while (hasA || hasB) {
+            if (hasA && (!hasB || a <= b)) {
+                if (hasB && a == b) {
+                    hasB = right.hasNext();
+                    b = hasB ? right.nextLong() : 0;
+                }
+                ids[count++] = a;
+                hasA = left.hasNext();
+                a = hasA ? left.nextLong() : 0;
+            } else {
+                ids[count++] = b;
+                hasB = right.hasNext();
+                b = hasB ? right.nextLong() : 0;
+            }
+        }
+        return ofSorted(ids, count);
+    }
+
+    // Method to find the block an id belongs to, the last one starting at or before it
+    private int findBlock(long id) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstIds[mid] <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private long[] decode(int block) {
+        long[] ids = new long[blockSizes[block]];
+        byte[] bytes = blocks[block];
+        ids[0] = firstIds[block];
+        int position = 0;
+        for (int i = 1; i < ids.length; i++) {
+            long gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                gap |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            ids[i] = ids[i - 1] + gap;
+        }
+        return ids;
+    }
+
+    private void encode(int block, long[] ids, int from, int count) {
+        // A gap takes at most 10 bytes
+        byte[] bytes = new byte[(count - 1) * 10];
+        int position = 0;
+        for (int i = from + 1; i < from + count; i++) {
+            long gap = ids[i] - ids[i - 1];
+            while ((gap & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            bytes[position++] = (byte) gap;
+        }
+        firstIds[block] = ids[from];
+        blocks[block] = Arrays.copyOf(bytes, position);
+        blockSizes[block] = count;
+    }
+
+    private void insertBlock(int block, long[] ids, int from, int count) {
+        if (blockCount == firstIds.length) {
+            firstIds = Arrays.copyOf(firstIds, blockCount * 2);
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            blockSizes = Arrays.copyOf(blockSizes, blockCount * 2);
+        }
+        System.arraycopy(firstIds, block, firstIds, block + 1, blockCount - block);
+        System.arraycopy(blocks, block, blocks, block + 1, blockCount - block);
+        System.arraycopy(blockSizes, block, blockSizes, block + 1, blockCount - block);
+        blockCount++;
+        encode(block, ids, from, count);
+    }
+
+    private void removeBlock(int block) {
+        System.arraycopy(firstIds, block + 1, firstIds, block, blockCount - block - 1);
+        System.arraycopy(blocks, block + 1, blocks, block, blockCount - block - 1);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block, blockCount - block - 1);
+        blockCount--;
+        blocks[blockCount] = null;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        forEach(id -> joiner.add(String.valueOf(id)));
+        return joiner.toString();
+    }
+}
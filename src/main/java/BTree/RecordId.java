@@ -0,0 +1,31 @@
+package BTree;
+
+/**
+ * A reference to a tuple packed in a long, the serial of its page in the high 32 bits and its
+ * clustering key in the low 32 bits, so index entries are neither stored as strings nor parsed.
+ * Entries of indices pointing to clustering keys only have a page serial of 0.
+ * Only tables whose clustering key is an Integer can be referenced this way.
+ */
+public final class RecordId {
+    private RecordId() {
+    }
+
+    // The sign bit of the key is flipped so the record ids of a page are ordered like their clustering keys
+    public static long of(int pageSerial, int primaryKey) {
+        return (long) pageSerial << 32 | ((primaryKey ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    public static int pageSerial(long recordId) {
+        return (int) (recordId >>> 32);
+    }
+
+    public static int primaryKey(long recordId) {
+        return (int) recordId ^ Integer.MIN_VALUE;
+    }
+
+    // Same format as the string values of the indices, "page serial-clustering key" or only the clustering key
+    public static String toString(long recordId) {
+        int pageSerial = pageSerial(recordId);
+        return pageSerial == 0 ? String.valueOf(primaryKey(recordId)) : pageSerial + "-" + primaryKey(recordId);
+    }
+}
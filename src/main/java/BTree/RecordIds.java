@@ -0,0 +1,91 @@
+package BTree;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Vector;
+import java.util.function.LongConsumer;
+
+/**
+ * The record ids of one key of a leaf, kept sorted in a primitive array
+ * so they are ordered by page like the string values of the indices.
+ * Keys with more than SMALL_SIZE ids, the duplicates of low cardinality columns, switch to a compressed PostingList.
+ */
+class RecordIds implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final int SMALL_SIZE = 64;
+
+    // Null once the ids moved to postings
+    private long[] ids = new long[1];
+    private int size;
+    // Null until the key has more than SMALL_SIZE ids, null in entries written by older versions
+    private PostingList postings;
+
+    int size() {
+        return postings != null ? postings.size() : size;
+    }
+
+    long first() {
+        return postings != null ? postings.first() : ids[0];
+    }
+
+    void add(long recordId) {
+        if (postings != null) {
+            postings.add(recordId);
+            return;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, recordId);
+        index = index < 0 ? -index - 1 : index + 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = recordId;
+        size++;
+        if (size > SMALL_SIZE) {
+            postings = PostingList.of(ids, size);
+            ids = null;
+            size = 0;
+        }
+    }
+
+    boolean remove(long recordId) {
+        if (postings != null) {
+            return postings.remove(recordId);
+        }
+        int index = Arrays.binarySearch(ids, 0, size, recordId);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    void forEach(LongConsumer action) {
+        if (postings != null) {
+            postings.forEach(action);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            action.accept(ids[i]);
+        }
+    }
+
+    // The record ids in the string format of the indices, for the callers of the string api
+    Vector<String> toValues() {
+        Vector<String> values = new Vector<>(size());
+        forEach(recordId -> values.add(RecordId.toString(recordId)));
+        return values;
+    }
+
+    // The ids as a posting list, the compressed list itself for keys with many ids so it must not be modified
+    PostingList toPostingList() {
+        return postings != null ? postings : PostingList.of(ids, size);
+    }
+
+    @Override
+    public String toString() {
+        return toValues().toString();
+    }
+}
@@ -0,0 +1,294 @@
+package Index;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.IntConsumer;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A compressed set of ints. Values are split by their high 16 bits into containers of up to 65536 values,
+ * a container is a sorted array of the low 16 bits while it holds at most ARRAY_LIMIT values and a 1024 word bitset past that,
+ * so sparse and dense runs of values both stay small. and(), or(), xor(), andNot() combine two bitmaps container by container,
+ * a word at a time for bitsets, without visiting the values one by one. Values are visited in signed order.
+ */
+public final class Bitmap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Past this many values a bitset takes less room than an array
+    static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private static final LongBinaryOperator AND = (a, b) -> a & b;
+    private static final LongBinaryOperator OR = (a, b) -> a | b;
+    private static final LongBinaryOperator XOR = (a, b) -> a ^ b;
+    private static final LongBinaryOperator AND_NOT = (a, b) -> a & ~b;
+
+    // High 16 bits of the values of each container with the sign bit flipped, so the keys sort like the signed values
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int count;
+
+    public boolean add(int value) {
+        char key = highBits(value);
+        int index = find(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new Container());
+        }
+        return containers[index].add((char) value);
+    }
+
+    public boolean remove(int value) {
+        int index = find(highBits(value));
+        if (index < 0 || !containers[index].remove((char) value)) {
+            return false;
+        }
+        if (containers[index].cardinality == 0) {
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, count - index - 1);
+            containers[--count] = null;
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        int index = find(highBits(value));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < count; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < count; i++) {
+            containers[i].forEach((keys[i] ^ 0x8000) << 16, action);
+        }
+    }
+
+    // Method to get the values in both bitmaps, neither bitmap is modified
+    public Bitmap and(Bitmap other) {
+        return combine(other, AND);
+    }
+
+    // Method to get the values in either bitmap, neither bitmap is modified
+    public Bitmap or(Bitmap other) {
+        return combine(other, OR);
+    }
+
+    // Method to get the values in exactly one of the bitmaps, neither bitmap is modified
+    public Bitmap xor(Bitmap other) {
+        return combine(other, XOR);
+    }
+
+    // Method to get the values of this bitmap that aren't in the other one, neither bitmap is modified
+    public Bitmap andNot(Bitmap other) {
+        return combine(other, AND_NOT);
+    }
+
+    // Walks the keys of both bitmaps in order, a key missing on one side is combined with an empty container
+    private Bitmap combine(Bitmap other, LongBinaryOperator operator) {
+        Bitmap result = new Bitmap();
+        Container empty = new Container();
+        int i = 0;
+        int j = 0;
+        while (i < count || j < other.count) {
+            int cmp = i == count ? 1 : j == other.count ? -1 : Character.compare(keys[i], other.keys[j]);
+            char key = cmp <= 0 ? keys[i] : other.keys[j];
+            Container left = cmp <= 0 ? containers[i++] : empty;
+            Container right = cmp >= 0 ? other.containers[j++] : empty;
+            Container container = Container.combine(left, right, operator);
+            if (container.cardinality > 0) {
+                result.insertContainer(result.count, key, container);
+            }
+        }
+        return result;
+    }
+
+    private static char highBits(int value) {
+        return (char) ((value >>> 16) ^ 0x8000);
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(4, count * 2));
+            containers = Arrays.copyOf(containers, keys.length);
+        }
+        System.arraycopy(keys, index, keys, index + 1, count - index);
+        System.arraycopy(containers, index, containers, index + 1, count - index);
+        keys[index] = key;
+        containers[index] = container;
+        count++;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        forEach(value -> joiner.add(String.valueOf(value)));
+        return joiner.toString();
+    }
+
+    // The low 16 bits of the values sharing the same high 16 bits, words is null while they are kept in the sorted array
+    private static final class Container implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private char[] values = new char[0];
+        private long[] words;
+        private int cardinality;
+
+        boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        boolean add(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) != 0) {
+                    return false;
+                }
+                words[value >>> 6] |= bit;
+                cardinality++;
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                words = toWords();
+                values = null;
+                return add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) == 0) {
+                    return false;
+                }
+                words[value >>> 6] &= ~bit;
+                if (--cardinality == ARRAY_LIMIT / 2) {
+                    // Back to an array well below the limit so adds and removes around it don't convert every time
+                    values = toValues(words, cardinality);
+                    words = null;
+                }
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return true;
+        }
+
+        void forEach(int high, IntConsumer action) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    action.accept(high | values[i]);
+                }
+                return;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private long[] toWords() {
+            if (words != null) {
+                return words;
+            }
+            long[] bits = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            return bits;
+        }
+
+        private static char[] toValues(long[] words, int cardinality) {
+            char[] values = new char[cardinality];
+            int next = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[next++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return values;
+        }
+
+        // Two arrays are merged value by value, anything else is combined a word at a time
+        static Container combine(Container left, Container right, LongBinaryOperator operator) {
+            Container result = new Container();
+            if (left.words == null && right.words == null) {
+                char[] values = new char[left.cardinality + right.cardinality];
+                int i = 0;
+                int j = 0;
+                while (i < left.cardinality || j < right.cardinality) {
+                    int cmp = i == left.cardinality ? 1 : j == right.cardinality ? -1 : Character.compare(left.values[i], right.values[j]);
+                    char value = cmp <= 0 ? left.values[i] : right.values[j];
+                    long inLeft = cmp <= 0 ? 1 : 0;
+                    long inRight = cmp >= 0 ? 1 : 0;
+                    i += (int) inLeft;
+                    j += (int) inRight;
+                    if (operator.applyAsLong(inLeft, inRight) != 0) {
+                        values[result.cardinality++] = value;
+                    }
+                }
+                if (result.cardinality <= ARRAY_LIMIT) {
+                    result.values = Arrays.copyOf(values, result.cardinality);
+                    return result;
+                }
+                result.values = values;
+                result.words = result.toWords();
+                result.values = null;
+                return result;
+            }
+            long[] leftWords = left.toWords();
+            long[] rightWords = right.toWords();
+            long[] words = new long[WORDS];
+            for (int w = 0; w < WORDS; w++) {
+                words[w] = operator.applyAsLong(leftWords[w], rightWords[w]);
+                result.cardinality += Long.bitCount(words[w]);
+            }
+            if (result.cardinality <= ARRAY_LIMIT) {
+                result.values = toValues(words, result.cardinality);
+            } else {
+                result.words = words;
+                result.values = null;
+            }
+            return result;
+        }
+    }
+}
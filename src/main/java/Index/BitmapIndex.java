@@ -0,0 +1,82 @@
+package Index;
+
+import Utilities.IndexType;
+
+import java.util.HashMap;
+
+/**
+ * An index keeping one compressed bitmap per distinct value of a column, over the Integer clustering keys
+ * of the tuples holding the value. It suits low-cardinality columns, where a B+ tree key would carry a long list of pointers,
+ * and lets =, != terms on several indexed columns be combined with bitwise operations before any page is read.
+ */
+public class BitmapIndex implements ValueIndex {
+    private static final long serialVersionUID = 1L;
+
+    private final String indexName;
+    private final String colName;
+    private final HashMap<Object, Bitmap> bitmaps = new HashMap<>();
+    // Every tuple with a value in the column, null values are never in any bitmap
+    private Bitmap rows = new Bitmap();
+
+    public BitmapIndex(String indexName, String colName) {
+        this.indexName = indexName;
+        this.colName = colName;
+    }
+
+    @Override
+    public String getIndexName() {
+        return indexName;
+    }
+
+    @Override
+    public String getColName() {
+        return colName;
+    }
+
+    @Override
+    public IndexType getIndexType() {
+        return IndexType.BITMAP;
+    }
+
+    @Override
+    public void insert(Object value, Object primaryKey) {
+        if (value == null) {
+            return;
+        }
+        bitmaps.computeIfAbsent(value, v -> new Bitmap()).add((Integer) primaryKey);
+        rows.add((Integer) primaryKey);
+    }
+
+    @Override
+    public void delete(Object value, Object primaryKey) {
+        Bitmap bitmap = value == null ? null : bitmaps.get(value);
+        if (bitmap == null || !bitmap.remove((Integer) primaryKey)) {
+            return;
+        }
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(value);
+        }
+        rows.remove((Integer) primaryKey);
+    }
+
+    @Override
+    public void deleteAll() {
+        bitmaps.clear();
+        rows = new Bitmap();
+    }
+
+    public int distinctValues() {
+        return bitmaps.size();
+    }
+
+    // Method to get the clustering keys of the tuples satisfying "column operator value", only = and != are answered
+    public Bitmap lookup(String operator, Object value) {
+        Bitmap bitmap = bitmaps.getOrDefault(value, new Bitmap());
+        return switch (operator) {
+            // A copy, the stored bitmap keeps changing along with the table
+            case "=" -> bitmap.or(new Bitmap());
+            case "!=" -> rows.andNot(bitmap);
+            default -> throw new IllegalArgumentException("Bitmap indices only answer = and != terms");
+        };
+    }
+}
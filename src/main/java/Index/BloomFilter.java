@@ -0,0 +1,61 @@
+package Index;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A Bloom filter answers whether a value may be in a set without storing the set.
+ * A value that was added is always found, a value that wasn't is wrongly found with at most the false positive rate
+ * the filter was sized for, as long as it holds at most the expected number of values.
+ */
+public class BloomFilter implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    public BloomFilter(int expectedValues, double falsePositiveRate) {
+        int n = Math.max(1, expectedValues);
+        double ln2 = Math.log(2);
+        bitCount = (int) Math.max(64, Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+        bits = new long[(bitCount + 63) >>> 6];
+    }
+
+    public void add(Object value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitOf(hash, i);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(Object value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitOf(hash, i);
+            if ((bits[bit >>> 6] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The i-th bit of a value, both halves of the hash are combined so hashCount hashes come from a single one
+    // The step is odd so it's never 0
+    private int bitOf(long hash, int i) {
+        return Math.floorMod((int) hash + i * ((int) (hash >>> 32) | 1), bitCount);
+    }
+
+    // The hash codes of Integer, Double and String are fixed by their specification, so filters stay valid across runs
+    static long hash(Object value) {
+        long hash = value.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+}
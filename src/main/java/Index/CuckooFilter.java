@@ -0,0 +1,144 @@
+package Index;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A cuckoo filter answers whether a value may be in a set like a Bloom filter, and also lets values be removed.
+ * Each value is reduced to a 16 bit fingerprint kept in one of two buckets of SLOTS slots, a value that was added
+ * and not removed is always found and any other value is wrongly found about 2 * SLOTS times in 65536.
+ * When both buckets of a value are full, fingerprints are moved to their other bucket to make room.
+ * If MAX_KICKS moves aren't enough the filter is left as it was and add fails, the filter is then too full
+ * and has to be rebuilt bigger.
+ */
+public class CuckooFilter implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    static final int SLOTS = 4;
+    static final int MAX_KICKS = 500;
+    // Filters are created at most this full so adding values rarely fails before they're that full
+    private static final double MAX_LOAD = 0.9;
+
+    // SLOTS slots per bucket, 0 is an empty slot
+    private final short[] fingerprints;
+    private final int bucketMask;
+    private int size;
+    // State of the generator choosing which fingerprint to move out of a full bucket
+    private int kickState = 1;
+
+    public CuckooFilter(int capacity) {
+        int needed = Math.max(1, (int) Math.ceil(capacity / (SLOTS * MAX_LOAD)));
+        int buckets = Integer.highestOneBit(needed);
+        if (buckets < needed) {
+            buckets <<= 1;
+        }
+        fingerprints = new short[buckets * SLOTS];
+        bucketMask = buckets - 1;
+    }
+
+    // Method to add a value, false if there was no room for it, the filter doesn't change then
+    public boolean add(Object value) {
+        long hash = BloomFilter.hash(value);
+        short fingerprint = fingerprintOf(hash);
+        int bucket = (int) hash & bucketMask;
+        if (insertInto(bucket, fingerprint) || insertInto(alternate(bucket, fingerprint), fingerprint)) {
+            size++;
+            return true;
+        }
+        int[] kicked = new int[MAX_KICKS];
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            kicked[kick] = bucket * SLOTS + nextKickSlot();
+            short victim = fingerprints[kicked[kick]];
+            fingerprints[kicked[kick]] = fingerprint;
+            fingerprint = victim;
+            bucket = alternate(bucket, fingerprint);
+            if (insertInto(bucket, fingerprint)) {
+                size++;
+                return true;
+            }
+        }
+        // Every move is undone in reverse, the fingerprint in hand ends up being the one of the value
+        for (int kick = MAX_KICKS - 1; kick >= 0; kick--) {
+            short displaced = fingerprints[kicked[kick]];
+            fingerprints[kicked[kick]] = fingerprint;
+            fingerprint = displaced;
+        }
+        return false;
+    }
+
+    public boolean mightContain(Object value) {
+        long hash = BloomFilter.hash(value);
+        short fingerprint = fingerprintOf(hash);
+        int bucket = (int) hash & bucketMask;
+        return slotOf(bucket, fingerprint) != -1 || slotOf(alternate(bucket, fingerprint), fingerprint) != -1;
+    }
+
+    // Method to remove a value that was added, removing a value that wasn't may remove another one
+    public boolean remove(Object value) {
+        long hash = BloomFilter.hash(value);
+        short fingerprint = fingerprintOf(hash);
+        int bucket = (int) hash & bucketMask;
+        int slot = slotOf(bucket, fingerprint);
+        if (slot == -1) {
+            slot = slotOf(alternate(bucket, fingerprint), fingerprint);
+        }
+        if (slot == -1) {
+            return false;
+        }
+        fingerprints[slot] = 0;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(fingerprints, (short) 0);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return fingerprints.length;
+    }
+
+    // The high bits of the hash, the low ones pick the first bucket
+    private static short fingerprintOf(long hash) {
+        short fingerprint = (short) (hash >>> 48);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    // The other bucket of a fingerprint, applying it twice gives back the first bucket
+    private int alternate(int bucket, short fingerprint) {
+        return (bucket ^ (int) BloomFilter.hash(fingerprint)) & bucketMask;
+    }
+
+    private boolean insertInto(int bucket, short fingerprint) {
+        int slot = slotOf(bucket, (short) 0);
+        if (slot == -1) {
+            return false;
+        }
+        fingerprints[slot] = fingerprint;
+        return true;
+    }
+
+    private int slotOf(int bucket, short fingerprint) {
+        for (int slot = bucket * SLOTS; slot < (bucket + 1) * SLOTS; slot++) {
+            if (fingerprints[slot] == fingerprint) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Xorshift, the moves don't have to be random, only to not always pick the same slot
+    private int nextKickSlot() {
+        kickState ^= kickState << 13;
+        kickState ^= kickState >>> 17;
+        kickState ^= kickState << 5;
+        return Math.floorMod(kickState, SLOTS);
+    }
+}
@@ -0,0 +1,158 @@
+package Index;
+
+import Utilities.IndexType;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A linear hashing index from the values of a column to the clustering keys of the tuples holding them.
+ * A lookup hashes the value to a single bucket of at most a few entries, whatever the number of values.
+ * Buckets are split one at a time in a fixed order whenever the average bucket holds more than MAX_LOAD values,
+ * so the table grows without ever rehashing every value at once.
+ */
+public class HashIndex implements ValueIndex {
+    private static final long serialVersionUID = 1L;
+
+    static final int INITIAL_BUCKETS = 4;
+    static final int MAX_LOAD = 4;
+
+    private final String indexName;
+    private final String colName;
+    private final ArrayList<ArrayList<Entry>> buckets = new ArrayList<>();
+    // Buckets before next were already split in the current round, a round doubles the number of buckets
+    private int level;
+    private int next;
+    // Number of distinct values
+    private int size;
+
+    // A value and the clustering keys of the tuples holding it
+    private record Entry(Object value, ArrayList<Object> primaryKeys) implements Serializable {
+    }
+
+    public HashIndex(String indexName, String colName) {
+        this.indexName = indexName;
+        this.colName = colName;
+        deleteAll();
+    }
+
+    @Override
+    public String getIndexName() {
+        return indexName;
+    }
+
+    @Override
+    public String getColName() {
+        return colName;
+    }
+
+    @Override
+    public IndexType getIndexType() {
+        return IndexType.HASH;
+    }
+
+    @Override
+    public void insert(Object value, Object primaryKey) {
+        if (value == null) {
+            return;
+        }
+        Entry entry = find(value);
+        if (entry == null) {
+            entry = new Entry(value, new ArrayList<>(1));
+            buckets.get(bucketOf(value)).add(entry);
+            size++;
+            if (size > buckets.size() * MAX_LOAD) {
+                split();
+            }
+        }
+        entry.primaryKeys().add(primaryKey);
+    }
+
+    @Override
+    public void delete(Object value, Object primaryKey) {
+        if (value == null) {
+            return;
+        }
+        ArrayList<Entry> bucket = buckets.get(bucketOf(value));
+        for (int i = 0; i < bucket.size(); i++) {
+            Entry entry = bucket.get(i);
+            if (entry.value().equals(value)) {
+                entry.primaryKeys().remove(primaryKey);
+                if (entry.primaryKeys().isEmpty()) {
+                    bucket.remove(i);
+                    size--;
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        buckets.clear();
+        for (int i = 0; i < INITIAL_BUCKETS; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        level = 0;
+        next = 0;
+        size = 0;
+    }
+
+    // Method to get the clustering keys of the tuples holding a value
+    public List<Object> lookup(Object value) {
+        Entry entry = find(value);
+        return entry == null ? List.of() : Collections.unmodifiableList(entry.primaryKeys());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    private Entry find(Object value) {
+        for (Entry entry : buckets.get(bucketOf(value))) {
+            if (entry.value().equals(value)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // The hash codes of Integer, Double and String are fixed by their specification, so buckets stay valid across runs
+    private int bucketOf(Object value) {
+        int hash = value.hashCode();
+        hash ^= hash >>> 16;
+        int bucket = hash & ((INITIAL_BUCKETS << level) - 1);
+        if (bucket < next) {
+            bucket = hash & ((INITIAL_BUCKETS << (level + 1)) - 1);
+        }
+        return bucket;
+    }
+
+    // Method to split the next bucket in two, its values either stay or move to the new bucket at the end
+    private void split() {
+        ArrayList<Entry> bucket = buckets.get(next);
+        buckets.add(new ArrayList<>());
+        next++;
+        if (next == INITIAL_BUCKETS << level) {
+            level++;
+            next = 0;
+        }
+        ArrayList<Entry> staying = new ArrayList<>();
+        for (Entry entry : bucket) {
+            int target = bucketOf(entry.value());
+            if (target == buckets.size() - 1) {
+                buckets.get(target).add(entry);
+            } else {
+                staying.add(entry);
+            }
+        }
+        bucket.clear();
+        bucket.addAll(staying);
+    }
+}
@@ -0,0 +1,24 @@
+package Index;
+
+import Utilities.IndexType;
+
+import java.io.Serializable;
+
+/**
+ * An index over the values of one column pointing to the clustering keys of the tuples holding them.
+ * It never refers to pages, so tuples moving between pages don't change it.
+ */
+public interface ValueIndex extends Serializable {
+    String getIndexName();
+
+    String getColName();
+
+    IndexType getIndexType();
+
+    // Null values aren't indexed
+    void insert(Object value, Object primaryKey);
+
+    void delete(Object value, Object primaryKey);
+
+    void deleteAll();
+}
@@ -0,0 +1,223 @@
+package Main;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The values of one column of a page in a single array, ordered like the tuples of the page.
+ * Integer and Double columns are kept in primitive arrays with a bitmap of the null rows,
+ * so binary searches and predicates over them run without unboxing or type switches in the loop.
+ * Other columns keep their values as objects.
+ */
+class ColumnVector {
+    private static final int INTEGER = 0;
+    private static final int DOUBLE = 1;
+    private static final int OBJECT = 2;
+
+    private final int type;
+    private int[] ints;
+    private double[] doubles;
+    private Object[] objects;
+    private final BitSet nulls = new BitSet();
+    private int size;
+
+    ColumnVector(List<Tuple> tuples, int ordinal, String typeName) {
+        this.type = switch (typeName == null ? "" : typeName) {
+            case "java.lang.Integer" -> INTEGER;
+            case "java.lang.Double" -> DOUBLE;
+            default -> OBJECT;
+        };
+        int capacity = Math.max(tuples.size(), 16);
+        switch (type) {
+            case INTEGER -> ints = new int[capacity];
+            case DOUBLE -> doubles = new double[capacity];
+            default -> objects = new Object[capacity];
+        }
+        for (Tuple tuple : tuples) {
+            insert(size, tuple.get(ordinal));
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void insert(int index, Object value) {
+        ensureCapacity(size + 1);
+        switch (type) {
+            case INTEGER -> System.arraycopy(ints, index, ints, index + 1, size - index);
+            case DOUBLE -> System.arraycopy(doubles, index, doubles, index + 1, size - index);
+            default -> System.arraycopy(objects, index, objects, index + 1, size - index);
+        }
+        for (int i = size; i > index; i--) {
+            nulls.set(i, nulls.get(i - 1));
+        }
+        size++;
+        set(index, value);
+    }
+
+    void remove(int index) {
+        switch (type) {
+            case INTEGER -> System.arraycopy(ints, index + 1, ints, index, size - index - 1);
+            case DOUBLE -> System.arraycopy(doubles, index + 1, doubles, index, size - index - 1);
+            default -> {
+                System.arraycopy(objects, index + 1, objects, index, size - index - 1);
+                objects[size - 1] = null;
+            }
+        }
+        for (int i = index; i < size - 1; i++) {
+            nulls.set(i, nulls.get(i + 1));
+        }
+        nulls.clear(size - 1);
+        size--;
+    }
+
+    void set(int index, Object value) {
+        nulls.set(index, value == null);
+        switch (type) {
+            case INTEGER -> ints[index] = value == null ? 0 : (Integer) value;
+            case DOUBLE -> doubles[index] = value == null ? 0 : (Double) value;
+            default -> objects[index] = value;
+        }
+    }
+
+    /**
+     * Binary search over a sorted column without null values.
+     * @return the index of the key if it exists, otherwise -(insertion point) - 1
+     */
+    int binarySearch(Object key) {
+        int low = 0;
+        int high = size - 1;
+        switch (type) {
+            case INTEGER -> {
+                int k = (Integer) key;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int cmp = Integer.compare(ints[mid], k);
+                    if (cmp < 0) {
+                        low = mid + 1;
+                    } else if (cmp > 0) {
+                        high = mid - 1;
+                    } else {
+                        return mid;
+                    }
+                }
+            }
+            case DOUBLE -> {
+                double k = (Double) key;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int cmp = Double.compare(doubles[mid], k);
+                    if (cmp < 0) {
+                        low = mid + 1;
+                    } else if (cmp > 0) {
+                        high = mid - 1;
+                    } else {
+                        return mid;
+                    }
+                }
+            }
+            default -> {
+                String k = (String) key;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int cmp = ((String) objects[mid]).compareTo(k);
+                    if (cmp < 0) {
+                        low = mid + 1;
+                    } else if (cmp > 0) {
+                        high = mid - 1;
+                    } else {
+                        return mid;
+                    }
+                }
+            }
+        }
+        return -(low + 1);
+    }
+
+    // Method to get the rows whose value satisfies "value operator operand", null values never do
+    BitSet filter(String operator, Object operand) {
+        BitSet result = new BitSet(size);
+        int accepted = acceptedComparisons(operator);
+        switch (type) {
+            case INTEGER -> {
+                int k = (Integer) operand;
+                for (int i = 0; i < size; i++) {
+                    if (accepts(accepted, Integer.compare(ints[i], k))) {
+                        result.set(i);
+                    }
+                }
+            }
+            case DOUBLE -> {
+                double k = (Double) operand;
+                for (int i = 0; i < size; i++) {
+                    if (accepts(accepted, Double.compare(doubles[i], k))) {
+                        result.set(i);
+                    }
+                }
+            }
+            default -> {
+                String k = (String) operand;
+                for (int i = 0; i < size; i++) {
+                    if (objects[i] != null && accepts(accepted, String.valueOf(objects[i]).compareTo(k))) {
+                        result.set(i);
+                    }
+                }
+            }
+        }
+        result.andNot(nulls);
+        return result;
+    }
+
+    // Method to evaluate a single value the same way filter does, nulls never satisfy a term
+    static boolean test(Object value, String operator, Object operand) {
+        if (value == null) {
+            return false;
+        }
+        int comparison = value instanceof Integer || value instanceof Double
+                ? compare(value, operand)
+                : String.valueOf(value).compareTo((String) operand);
+        return accepts(acceptedComparisons(operator), comparison);
+    }
+
+    // Bit 0 is set if the operator accepts "less than", bit 1 "equal" and bit 2 "greater than"
+    private static int acceptedComparisons(String operator) {
+        return switch (operator) {
+            case ">" -> 0b100;
+            case ">=" -> 0b110;
+            case "<" -> 0b001;
+            case "<=" -> 0b011;
+            case "!=" -> 0b101;
+            case "=" -> 0b010;
+            default -> 0;
+        };
+    }
+
+    private static boolean accepts(int accepted, int comparison) {
+        return (accepted >> (Integer.signum(comparison) + 1) & 1) != 0;
+    }
+
+    // The operand of a term has the type of its column, so it compares with the values of the column
+    @SuppressWarnings("unchecked")
+    private static int compare(Object value, Object operand) {
+        return ((Comparable<Object>) value).compareTo(operand);
+    }
+
+    private void ensureCapacity(int capacity) {
+        int length = switch (type) {
+            case INTEGER -> ints.length;
+            case DOUBLE -> doubles.length;
+            default -> objects.length;
+        };
+        if (capacity <= length) {
+            return;
+        }
+        int newLength = Math.max(capacity, length * 2);
+        switch (type) {
+            case INTEGER -> ints = Arrays.copyOf(ints, newLength);
+            case DOUBLE -> doubles = Arrays.copyOf(doubles, newLength);
+            default -> objects = Arrays.copyOf(objects, newLength);
+        }
+    }
+}
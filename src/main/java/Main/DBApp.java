@@ -2,6 +2,10 @@ package Main;
 /** * @author Wael Abouelsaadat */
 
 import Exception.DBAppException;
+import Utilities.BufferPool;
+import Utilities.IndexType;
+import Utilities.PageFile;
+import Utilities.PageFormat;
 import Utilities.Serializer;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
@@ -10,17 +14,54 @@ import sql.parser.SQLParser;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 
 public class DBApp {
 
 	public static int pageSize = readConfig("MaximumRowsCountinPage");
 	public static int nodeOrder = readConfig("TreeNodeOrder");
+	public static int bufferPoolPages = readConfig("BufferPoolPages");
+	public static int ioThreads = readConfig("IOThreads");
+	// 1 if new tables should use the binary page format, 0 for Java serialization
+	public static int binaryPages = readConfig("BinaryPages");
+	// Initial size in bytes of a slot in a table's page file, grows if a page doesn't fit
+	public static int pageSlotSize = readConfig("PageSlotSize");
+	// Percentage of a page filled by bulk inserts, the rest is left for later inserts
+	public static int bulkLoadFillFactor = readConfig("BulkLoadFillFactor");
+	// 1 if inserting into a full page should split it in two instead of shifting tuples through the following pages
+	public static int splitPagesOnInsert = readConfig("SplitPagesOnInsert");
+	// 1 if secondary indices should store clustering keys instead of page serials, so moving a tuple never updates them
+	public static int logicalIndexPointers = readConfig("LogicalIndexPointers");
+	// 1 if new indices should keep their nodes in their own file of node pages instead of inside the table file
+	public static int pagedIndexes = readConfig("PagedIndexes");
+	// Maximum number of nodes of a paged index kept in memory
+	public static int indexCacheNodes = readConfig("IndexCacheNodes");
 
 	private final HashSet<String> myTables;
 
+	// Tables that were already loaded and validated, kept resident until the app is closed
+	private final HashMap<String,Table> catalog;
+	// Tables whose in-memory state differs from the one in the Tables directory
+	private final HashSet<String> dirtyTables;
+	// Cached pages of all the resident tables
+	private final BufferPool bufferPool;
+	// Shared by all the tables to read pages in parallel, shut down by close()
+	private final ExecutorService ioExecutor;
+
 	public DBApp( ){
 		this.myTables = new HashSet<>();
+		this.catalog = new HashMap<>();
+		this.dirtyTables = new HashSet<>();
+		this.bufferPool = new BufferPool(bufferPoolPages);
+		this.ioExecutor = Executors.newFixedThreadPool(Math.max(ioThreads, 1), runnable -> {
+			Thread thread = new Thread(runnable, "DBApp-io");
+			// An app that was never closed shouldn't keep the JVM alive
+			thread.setDaemon(true);
+			return thread;
+		});
 		init();
 	}
 
@@ -128,10 +169,13 @@ public class DBApp {
 			}
 			writer.writeAll(data);
 			Table table = new Table(strTableName,strClusteringKeyColumn,attr);
+			table.setBufferPool(bufferPool);
+			table.setIOExecutor(ioExecutor);
 			// closing writer connection
 			writer.close();
 
 			myTables.add(strTableName);
+			catalog.put(strTableName,table);
 			Serializer.serializeTable(table,strTableName);
 		}catch (IOException e){
 			e.printStackTrace();
@@ -168,9 +212,13 @@ public class DBApp {
 		}
 		return false;
 	}
+	// Returns the resident table, loading it and validating it against the metadata file
+	// only the first time it is requested
 	private Table checkTableExits(String strTableName) throws DBAppException {
 		if (!myTables.contains(strTableName)){
 			throw new DBAppException("Table does not exist");
+		}else if (catalog.containsKey(strTableName)){
+			return catalog.get(strTableName);
 		}else {
 			Table table = Serializer.deserializeTable(strTableName);
 			ArrayList<String[]> row = new ArrayList<>();
@@ -217,20 +265,112 @@ public class DBApp {
 			}catch (IOException e){
 				e.printStackTrace();
 			}
+			table.setBufferPool(bufferPool);
+			table.setIOExecutor(ioExecutor);
+			catalog.put(strTableName,table);
 			return table;
 		}
 	}
 
+	// Writes every dirty page and every table modified since the last checkpoint to disk
+	public void checkpoint(){
+		bufferPool.flushAll();
+		for (String tableName : dirtyTables) {
+			catalog.get(tableName).flushIndices();
+		}
+		PageFile.forceAll();
+		for (String tableName : dirtyTables) {
+			Serializer.serializeTable(catalog.get(tableName),tableName);
+		}
+		dirtyTables.clear();
+	}
+
+	// Persists the resident tables and their pages and stops the I/O threads,
+	// the app should not be used after closing it
+	public void close(){
+		checkpoint();
+		for (String tableName : catalog.keySet()) {
+			try {
+				PageFile.close(tableName);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		catalog.clear();
+		ioExecutor.shutdown();
+		try {
+			if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+				ioExecutor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			ioExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public BufferPool getBufferPool(){
+		return bufferPool;
+	}
+
+	public ExecutorService getIOExecutor(){
+		return ioExecutor;
+	}
+
 	// the following method creates a B+tree index
 	public void createIndex(String   strTableName,
 							String   strColName,
 							String   strIndexName) throws DBAppException {
+		createIndex(strTableName, strColName, strIndexName, IndexType.BTREE);
+	}
+
+	// the following method creates an index of the given type, its type is recorded in metadata.csv
+	public void createIndex(String   strTableName,
+							String   strColName,
+							String   strIndexName,
+							IndexType indexType) throws DBAppException {
+		createIndex(strTableName, new String[] {strColName}, strIndexName, indexType);
+	}
+
+	// the following method creates a B+tree index over several columns,
+	// its keys compare the values of the columns in the given order
+	public void createIndex(String   strTableName,
+							String[] strarrColNames,
+							String   strIndexName) throws DBAppException {
+		createIndex(strTableName, strarrColNames, strIndexName, IndexType.BTREE);
+	}
+
+	// the following method creates a covering B+tree index, the values of the included columns are kept in its leaves
+	// after the indexed columns, so selects only reading these columns never read the pages of the table
+	public void createIndex(String   strTableName,
+							String[] strarrColNames,
+							String   strIndexName,
+							String[] strarrIncludedColNames) throws DBAppException {
+		createIndex(strTableName, strarrColNames, strIndexName, IndexType.BTREE, strarrIncludedColNames);
+	}
 
-		checkTableExits(strTableName);
-		Table table = Serializer.deserializeTable(strTableName);
+	private void createIndex(String   strTableName,
+							 String[] strarrColNames,
+							 String   strIndexName,
+							 IndexType indexType) throws DBAppException {
+		createIndex(strTableName, strarrColNames, strIndexName, indexType, new String[0]);
+	}
+
+	private void createIndex(String   strTableName,
+							 String[] strarrColNames,
+							 String   strIndexName,
+							 IndexType indexType,
+							 String[] strarrIncludedColNames) throws DBAppException {
+
+		Table table = checkTableExits(strTableName);
 		assert table != null;
-		table.createIndex(strColName,strIndexName);
+		// Included columns are the last columns of the keys, they're only recorded in the table
+		String[] keyColNames = Arrays.copyOf(strarrColNames, strarrColNames.length + strarrIncludedColNames.length);
+		System.arraycopy(strarrIncludedColNames, 0, keyColNames, strarrColNames.length, strarrIncludedColNames.length);
+		table.createIndex(keyColNames,strIndexName,indexType);
+		bufferPool.flush(strTableName);
+		table.flushIndices();
 		Serializer.serializeTable(table,strTableName);
+		dirtyTables.remove(strTableName);
 		File file = new File("metadata.csv");
 		try{
 			FileReader inputFile = new FileReader(file);
@@ -238,11 +378,12 @@ public class DBApp {
 			CSVReader reader = new CSVReader(inputFile);
 			List<String[]> csvBody = reader.readAll();
 			// get CSV row column and replace with by using row and column
+			// Every column of a composite index is recorded with the name of the index
+			List<String> colNames = Arrays.asList(strarrColNames);
 			for (String[] strArray : csvBody) {
-				if (strArray[0].equals(strTableName) && strArray[1].equals(strColName)) {
+				if (strArray[0].equals(strTableName) && colNames.contains(strArray[1])) {
 					strArray[4] = strIndexName;
-					strArray[5] = "B+Tree";
-					break;
+					strArray[5] = indexType.getMetadataName();
 				}
 			}
 			reader.close();
@@ -262,6 +403,21 @@ public class DBApp {
 	}
 
 
+	// the following method adds a Bloom filter on a column to every page of the table, equality selects and deletes
+	// on the column then skip the pages that don't hold the value, except for about falsePositiveRate of them
+	public void createBloomFilter(String strTableName,
+								  String strColName,
+								  double falsePositiveRate) throws DBAppException {
+		Table table = checkTableExits(strTableName);
+		assert table != null;
+		table.createBloomFilter(strColName, falsePositiveRate);
+		bufferPool.flush(strTableName);
+		table.flushIndices();
+		Serializer.serializeTable(table,strTableName);
+		dirtyTables.remove(strTableName);
+	}
+
+
 	// following method inserts one row only. 
 	// htblColNameValue must include a value for the primary key
 	public void insertIntoTable(String strTableName, 
@@ -269,7 +425,17 @@ public class DBApp {
 		Table table = checkTableExits(strTableName);
 		assert table != null;
 		table.insertTuple(htblColNameValue);
-		Serializer.serializeTable(table,strTableName);
+		dirtyTables.add(strTableName);
+	}
+
+	// following method inserts many rows at once, the rows don't have to be sorted
+	// every row must include a value for the primary key
+	public void bulkInsert(String strTableName,
+						   Iterator<Hashtable<String,Object>> rows) throws DBAppException {
+		Table table = checkTableExits(strTableName);
+		assert table != null;
+		table.bulkInsert(rows);
+		dirtyTables.add(strTableName);
 	}
 
 	// following method updates one row only
@@ -283,7 +449,7 @@ public class DBApp {
 		Table table = checkTableExits(strTableName);
 		assert table != null;
 		table.updateTuple(strClusteringKeyValue,htblColNameValue);
-		Serializer.serializeTable(table,strTableName);
+		dirtyTables.add(strTableName);
 	}
 
 
@@ -296,20 +462,34 @@ public class DBApp {
 		Table table = checkTableExits(strTableName);
 		assert table != null;
 		table.deleteTuples(htblColNameValue);
-		Serializer.serializeTable(table,strTableName);
+		dirtyTables.add(strTableName);
 	}
 
 
 	public Iterator selectFromTable(SQLTerm[] arrSQLTerms,
 									String[]  strarrOperators) throws DBAppException {
+		return selectFromTable(arrSQLTerms, strarrOperators, null);
+	}
+
+	// following method only returns the given columns of the selected tuples, all of them if strarrColNames is null
+	public Iterator selectFromTable(SQLTerm[] arrSQLTerms,
+									String[]  strarrOperators,
+									String[]  strarrColNames) throws DBAppException {
 		if(arrSQLTerms.length!=strarrOperators.length+1){
 			throw new DBAppException("Num of operators must be = SQLTerms -1");
 		}
 		String tableName = arrSQLTerms[0]._strTableName;
 		Table table = checkTableExits(tableName);
 		assert table != null;
+		if (strarrColNames != null) {
+			for (String colName : strarrColNames) {
+				if (!table.getAttributes().containsKey(colName)) {
+					throw new DBAppException("The Table doesn't contain a " + colName + " column");
+				}
+			}
+		}
 		if (arrSQLTerms.length == 1 && arrSQLTerms[0]._strColumnName == null && arrSQLTerms[0]._strOperator == null && arrSQLTerms[0]._objValue == null) {
-			return table.selectFromTable(new SQLTerm[0],strarrOperators);
+			return table.selectFromTable(new SQLTerm[0],strarrOperators,strarrColNames);
 		}
 		//Edge case checks
 		for (SQLTerm arrSQLTerm : arrSQLTerms) {
@@ -331,7 +511,18 @@ public class DBApp {
 				throw new DBAppException("The only supported array operators are AND,OR,XOR");
 			}
 		}
-		return table.selectFromTable(arrSQLTerms,strarrOperators);
+		return table.selectFromTable(arrSQLTerms,strarrOperators,strarrColNames);
+	}
+
+	// Switches the page format of a table, existing pages are migrated by rewriting them in the new format
+	public void setPageFormat(String strTableName, PageFormat pageFormat) throws DBAppException {
+		Table table = checkTableExits(strTableName);
+		assert table != null;
+		table.setPageFormat(pageFormat);
+		bufferPool.flush(strTableName);
+		table.flushIndices();
+		Serializer.serializeTable(table,strTableName);
+		dirtyTables.remove(strTableName);
 	}
 
 	public HashSet<String> getMyTables(){
@@ -342,8 +533,10 @@ public class DBApp {
 		if (!myTables.contains(strTableName)){
 			throw new DBAppException("Table does not exist");
 		}
-		Table table = Serializer.deserializeTable(strTableName);
-		assert table != null;
+		catalog.remove(strTableName);
+		dirtyTables.remove(strTableName);
+		bufferPool.discardTable(strTableName);
+		Serializer.deletePages(strTableName);
 		File pagesDir = new File("Pages/"+strTableName);
 		File[] files = pagesDir.listFiles();
 		assert files != null;
@@ -434,6 +627,7 @@ public class DBApp {
 			htblColNameValue.put("gpa",  0.88);
 			dbApp.insertIntoTable( strTableName , htblColNameValue );
 
+			dbApp.checkpoint();
 			Table table = Serializer.deserializeTable(strTableName);
 			assert table != null;
 			table.printTable();
@@ -481,6 +675,7 @@ public class DBApp {
 			while (resultSet.hasNext()){
 				System.out.println(resultSet.next());
 			}
+			dbApp.close();
 		}
 		catch(Exception exp){
 			exp.printStackTrace( );
@@ -0,0 +1,65 @@
+package Main;
+
+import BTree.BTree;
+import BTree.BTreeCursor;
+import BTree.CompositeKey;
+import sql.SQLTerm;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily evaluates a select statement over the keys of a covering B+ tree index, without reading any page of the table.
+ * The tuples are rebuilt from the values of the indexed columns in each key and the clustering keys stored with it,
+ * so they're returned in the order of the index rather than the clustering key order.
+ */
+public class IndexScanIterator implements Iterator<Tuple> {
+    private final Table table;
+    private final BTree<?,String> index;
+    private final BTreeCursor<?,String> cursor;
+    private final String[] columns;
+    private final List<List<List<SQLTerm>>> condition;
+    private final Schema output;
+    // Tuples of the current key satisfying the condition
+    private final ArrayDeque<Tuple> pending = new ArrayDeque<>();
+
+    public IndexScanIterator(Table table, BTree<?,String> index, BTreeCursor<?,String> cursor,
+                             List<List<List<SQLTerm>>> condition, Schema output) {
+        this.table = table;
+        this.index = index;
+        this.cursor = cursor;
+        this.columns = index.getColName().split(",");
+        this.condition = condition;
+        this.output = output;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending.isEmpty() && cursor.hasNext()) {
+            Object key = cursor.next();
+            Schema schema = table.getSchema();
+            for (Object primaryKeyVal : table.primaryKeysAt(index, cursor)) {
+                Object[] row = new Object[schema.size()];
+                for (int i = 0; i < columns.length; i++) {
+                    row[schema.ordinalOf(columns[i])] = key instanceof CompositeKey compositeKey ? compositeKey.get(i) : key;
+                }
+                row[schema.getPrimaryKeyOrdinal()] = primaryKeyVal;
+                Tuple tuple = new Tuple(row, schema);
+                if (SelectIterator.satisfies(tuple, condition)) {
+                    pending.add(tuple.project(output));
+                }
+            }
+        }
+        return !pending.isEmpty();
+    }
+
+    @Override
+    public Tuple next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pending.poll();
+    }
+}
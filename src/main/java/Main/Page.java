@@ -6,9 +6,14 @@ import java.io.Serializable;
 import java.util.*;
 
 public class Page implements Serializable {
+    // Same as before the class evolved, so pages written with Java serialization can still be read
+    private static final long serialVersionUID = 2878518821891604170L;
+
     private final int serial;
     private final Vector<Tuple> tuples;
     private final int maxSize = DBApp.pageSize;
+    // Column vectors built on first use and kept in sync with the tuples, indexed by column ordinal
+    private transient ColumnVector[] columns;
 
     public Page(Vector<Tuple> tuples, int serial) {
         this.tuples = tuples;
@@ -27,13 +32,32 @@ public class Page implements Serializable {
         if (isDuplicate(tuple.getPrimaryKeyValue())) {
             throw new DBAppException("Primary key already exists");
         }
-        tuples.add(findIndexToInsert(tuple.getPrimaryKeyValue()), tuple);
+        int index = findIndexToInsert(tuple.getPrimaryKeyValue());
+        tuples.add(index, tuple);
+        if (columns != null) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null) {
+                    columns[i].insert(index, tuple.get(i));
+                }
+            }
+        }
         //sort();
     }
 
     // Method to remove last tuple from vector and return it for shifting
     public Tuple removeLastTuple(){
-        return tuples.remove(tuples.size()-1);
+        return removeTuple(tuples.size()-1);
+    }
+
+    private Tuple removeTuple(int index){
+        if (columns != null) {
+            for (ColumnVector column : columns) {
+                if (column != null) {
+                    column.remove(index);
+                }
+            }
+        }
+        return tuples.remove(index);
     }
 
     public Tuple getLastTuple(){
@@ -58,18 +82,22 @@ public class Page implements Serializable {
     }
 
     // Method to insert a new tuple in the page with checks over the types of the values
-    public void insert(Hashtable<String,Object> values, LinkedHashMap<String,String> attributes, String primaryKey) throws DBAppException {
-        //iterate over the attributes and check if the value is of the same type
-        LinkedHashMap<String, Object> data = new LinkedHashMap<>();
-        for(Map.Entry<String, String> entry : attributes.entrySet()) {
-            String key = entry.getKey();
-            Object value = values.getOrDefault(key, null);
-            if (value != null && !entry.getValue().equals(value.getClass().getName())) {
+    public void insert(Hashtable<String,Object> values, Schema schema) throws DBAppException {
+        this.addTuple(createTuple(values, schema));
+    }
+
+    // Method to create a tuple from the values of a row with checks over the types of the values
+    static Tuple createTuple(Hashtable<String,Object> values, Schema schema) throws DBAppException {
+        //iterate over the columns and check if the value is of the same type
+        Object[] row = new Object[schema.size()];
+        for (int i = 0; i < row.length; i++) {
+            Object value = values.getOrDefault(schema.getColumn(i), null);
+            if (value != null && !schema.getType(i).equals(value.getClass().getName())) {
                 throw new DBAppException("Tuple's data type doesn't match the column's data type");
             }
-            data.put(key, value);
+            row[i] = value;
         }
-        this.addTuple(new Tuple(data,primaryKey));
+        return new Tuple(row, schema);
     }
 
     public HashMap<String, Object> update(Object primaryKeyVal, String primaryKey, Hashtable<String,Object> values, LinkedHashMap<String,String> attributes) throws DBAppException {
@@ -80,14 +108,22 @@ public class Page implements Serializable {
         Tuple tuple = tuples.get(indexToUpdate);
         HashMap<String,Object> data = new HashMap<>(tuple.getValues());
         //iterate over the attributes and check if the value is of the same type
+        //every value is checked before any is set, so a failed update leaves the tuple as it was
+        for(Map.Entry<String, String> entry : attributes.entrySet()) {
+            Object value = values.get(entry.getKey());
+            if (!Objects.equals(entry.getKey(), primaryKey) && value != null && !entry.getValue().equals(value.getClass().getName())) {
+                throw new DBAppException("Tuple's data type doesn't match the column's data type");
+            }
+        }
         for(Map.Entry<String, String> entry : attributes.entrySet()) {
             String key = entry.getKey();
             if (!Objects.equals(key, primaryKey) && values.containsKey(key)) {
                 Object value = values.get(key);
-                if (value != null && !entry.getValue().equals(value.getClass().getName())) {
-                    throw new DBAppException("Tuple's data type doesn't match the column's data type");
+                int ordinal = tuple.getSchema().ordinalOf(key);
+                tuple.set(ordinal, value);
+                if (columns != null && columns[ordinal] != null) {
+                    columns[ordinal].set(indexToUpdate, value);
                 }
-                tuple.getValues().put(key, value);
             }
         }
         return data;
@@ -98,57 +134,54 @@ public class Page implements Serializable {
         if(index == -1){
             throw new DBAppException("Primary key not found");
         }
-        return tuples.remove(index);
+        return removeTuple(index);
     }
 
     // Method to search for a primary Key in the page using binary search
     public int binarySearchString(Object key){
-        int low = 0;
-        int high = tuples.size() - 1;
-
-        while (low <= high) {
-            int mid = low + (high - low) / 2;
-            Object midValue = tuples.get(mid).getPrimaryKeyValue();
-            int cmp = switch (key.getClass().getSimpleName()) {
-                case "Integer" -> Integer.compare((int) key, (int) midValue);
-                case "String" -> ((String) key).compareTo((String) midValue);
-                case "Double" -> Double.compare((double) key, (double) midValue);
-                default -> throw new IllegalStateException("Unexpected value: " + key.getClass().getSimpleName());
-            };
-
-            if (cmp < 0) {
-                high = mid - 1;
-            } else if (cmp > 0) {
-                low = mid + 1;
-            } else {
-                return mid; // key found
-            }
+        if (tuples.isEmpty()) {
+            return -1;
         }
-
-        return -1;
+        int index = getPrimaryKeyColumn().binarySearch(key);
+        return index < 0 ? -1 : index;
     }
 
+    // Method to get the index a key should be inserted at to keep the page sorted, after any equal key
     public int findIndexToInsert(Object key){
-        int low = 0;
-        int high = tuples.size() - 1;
-
-        while (low <= high) {
-            int mid = low + (high - low) / 2;
-            Object midValue = tuples.get(mid).getPrimaryKeyValue();
-            int cmp = switch (key.getClass().getSimpleName()) {
-                case "Integer" -> Integer.compare((int) key, (int) midValue);
-                case "String" -> ((String) key).compareTo((String) midValue);
-                case "Double" -> Double.compare((double) key, (double) midValue);
-                default -> throw new IllegalStateException("Unexpected value: " + key.getClass().getSimpleName());
-            };
-            if (cmp < 0) {
-                high = mid - 1;
-            } else {
-                low = mid + 1;
-            }
+        if (tuples.isEmpty()) {
+            return 0;
         }
+        int index = getPrimaryKeyColumn().binarySearch(key);
+        return index < 0 ? -(index + 1) : index + 1;
+    }
 
-        return low;
+    // Method to get the indices of the tuples whose value in a column satisfies "value operator operand"
+    public BitSet filter(int ordinal, String operator, Object operand){
+        if (tuples.isEmpty()) {
+            return new BitSet();
+        }
+        return getColumn(ordinal).filter(operator, operand);
+    }
+
+    private ColumnVector getPrimaryKeyColumn(){
+        return getColumn(tuples.get(0).getSchema().getPrimaryKeyOrdinal());
+    }
+
+    private ColumnVector getColumn(int ordinal){
+        Schema schema = tuples.get(0).getSchema();
+        if (columns == null) {
+            columns = new ColumnVector[schema.size()];
+        }
+        if (columns[ordinal] == null) {
+            String type = schema.getType(ordinal);
+            // Tuples converted from the map based layout only know the types of their non-null values
+            for (int i = 0; type == null && i < tuples.size(); i++) {
+                Object value = tuples.get(i).get(ordinal);
+                type = value == null ? null : value.getClass().getName();
+            }
+            columns[ordinal] = new ColumnVector(tuples, ordinal, type);
+        }
+        return columns[ordinal];
     }
 
     // Method to check if this value already exists in the page
@@ -162,9 +195,13 @@ public class Page implements Serializable {
 
     public Object[] getMinMax(String key){
         Object[] minMax = new Object[2];
-        minMax[0] = tuples.get(0).getValues().get(key);
-        minMax[1] = tuples.get(tuples.size()-1).getValues().get(key);
+        minMax[0] = tuples.get(0).get(key);
+        minMax[1] = tuples.get(tuples.size()-1).get(key);
         return minMax;
     }
 
+    public ZoneMap getZoneMap(Schema schema, Map<String, Double> bloomFilterRates){
+        return ZoneMap.of(tuples, schema, bloomFilterRates);
+    }
+
 }
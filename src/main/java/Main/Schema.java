@@ -0,0 +1,76 @@
+package Main;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The columns of a table in the order of {@link Table#getAttributes()}.
+ * A single instance is shared by all the tuples of a table (or of a decoded page)
+ * so a tuple only has to store its values by ordinal.
+ */
+public class Schema implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String[] columns;
+    private final String[] types;
+    private final int primaryKeyOrdinal;
+    private transient HashMap<String, Integer> ordinals;
+
+    public Schema(String[] columns, String[] types, int primaryKeyOrdinal) {
+        this.columns = columns;
+        this.types = types;
+        this.primaryKeyOrdinal = primaryKeyOrdinal;
+    }
+
+    public Schema(LinkedHashMap<String, String> attributes, String primaryKey) {
+        this.columns = new String[attributes.size()];
+        this.types = new String[attributes.size()];
+        int i = 0;
+        int primaryKeyOrdinal = -1;
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            columns[i] = entry.getKey();
+            types[i] = entry.getValue();
+            if (entry.getKey().equals(primaryKey)) {
+                primaryKeyOrdinal = i;
+            }
+            i++;
+        }
+        this.primaryKeyOrdinal = primaryKeyOrdinal;
+    }
+
+    public int size() {
+        return columns.length;
+    }
+
+    public String getColumn(int ordinal) {
+        return columns[ordinal];
+    }
+
+    public String getType(int ordinal) {
+        return types[ordinal];
+    }
+
+    public int getPrimaryKeyOrdinal() {
+        return primaryKeyOrdinal;
+    }
+
+    public String getPrimaryKey() {
+        return primaryKeyOrdinal == -1 ? null : columns[primaryKeyOrdinal];
+    }
+
+    // Method to get the position of a column in a row, -1 if the column doesn't exist
+    public int ordinalOf(String column) {
+        if (ordinals == null) {
+            HashMap<String, Integer> map = new HashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                map.put(columns[i], i);
+            }
+            ordinals = map;
+        }
+        return ordinals.getOrDefault(column, -1);
+    }
+}
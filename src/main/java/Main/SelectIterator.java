@@ -0,0 +1,156 @@
+package Main;
+
+import sql.SQLTerm;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+
+/**
+ * Lazily evaluates a select statement over the pages of a table.
+ * A page is only read once all the tuples of the previous page were consumed,
+ * so a single page is held in memory at a time no matter how big the table is.
+ * Every term is evaluated over a whole column of the page at once into a bitmap of the matching tuples,
+ * the bitmaps are combined with AND having the highest precedence, then OR, then XOR.
+ * When an output schema is given, only its columns are kept in the returned tuples.
+ */
+public class SelectIterator implements Iterator<Tuple> {
+    private final Table table;
+    private final Iterator<Integer> serials;
+    // XOR of ORs of ANDs, empty if every tuple should be selected
+    private final List<List<List<SQLTerm>>> condition;
+    // Columns of the returned tuples, null to return the tuples as they're stored
+    private final Schema output;
+
+    private Vector<Tuple> currentTuples;
+    // Tuples of the current page satisfying the condition
+    private BitSet currentMatches;
+    private int currentIndex;
+    private Tuple next;
+
+    public SelectIterator(Table table, List<Integer> serials, List<List<List<SQLTerm>>> condition) {
+        this(table, serials, condition, null);
+    }
+
+    public SelectIterator(Table table, List<Integer> serials, List<List<List<SQLTerm>>> condition, Schema output) {
+        this.table = table;
+        this.serials = serials.iterator();
+        this.condition = condition;
+        this.output = output;
+    }
+
+    /**
+     * Groups the terms by the array operators, the result is a list of XOR operands,
+     * each one is a list of OR operands, and each of these is a list of terms ANDed together.
+     */
+    public static List<List<List<SQLTerm>>> groupTerms(SQLTerm[] arrSQLTerms, String[] strarrOperators) {
+        List<List<List<SQLTerm>>> xorGroups = new ArrayList<>();
+        if (arrSQLTerms.length == 0) {
+            return xorGroups;
+        }
+        List<List<SQLTerm>> orGroups = new ArrayList<>();
+        List<SQLTerm> andGroup = new ArrayList<>();
+        andGroup.add(arrSQLTerms[0]);
+        for (int i = 0; i < strarrOperators.length; i++) {
+            switch (strarrOperators[i].toUpperCase()) {
+                case "AND" -> andGroup.add(arrSQLTerms[i + 1]);
+                case "OR" -> {
+                    orGroups.add(andGroup);
+                    andGroup = new ArrayList<>();
+                    andGroup.add(arrSQLTerms[i + 1]);
+                }
+                case "XOR" -> {
+                    orGroups.add(andGroup);
+                    xorGroups.add(orGroups);
+                    orGroups = new ArrayList<>();
+                    andGroup = new ArrayList<>();
+                    andGroup.add(arrSQLTerms[i + 1]);
+                }
+            }
+        }
+        orGroups.add(andGroup);
+        xorGroups.add(orGroups);
+        return xorGroups;
+    }
+
+    // Method to get the tuples of a page satisfying the whole condition
+    private BitSet matches(Page page) {
+        BitSet result = new BitSet();
+        if (condition.isEmpty()) {
+            result.set(0, page.getSize());
+            return result;
+        }
+        for (List<List<SQLTerm>> orGroups : condition) {
+            BitSet orResult = new BitSet();
+            for (List<SQLTerm> andGroup : orGroups) {
+                BitSet andResult = null;
+                for (SQLTerm sqlTerm : andGroup) {
+                    BitSet termResult = page.filter(table.getSchema().ordinalOf(sqlTerm._strColumnName),
+                            sqlTerm._strOperator, sqlTerm._objValue);
+                    if (andResult == null) {
+                        andResult = termResult;
+                    } else {
+                        andResult.and(termResult);
+                    }
+                    if (andResult.isEmpty()) {
+                        break;
+                    }
+                }
+                orResult.or(andResult);
+            }
+            result.xor(orResult);
+        }
+        return result;
+    }
+
+    // Method to check whether a single tuple satisfies the whole condition, with the same precedence as matches
+    static boolean satisfies(Tuple tuple, List<List<List<SQLTerm>>> condition) {
+        boolean result = false;
+        for (List<List<SQLTerm>> orGroups : condition) {
+            boolean orResult = false;
+            for (List<SQLTerm> andGroup : orGroups) {
+                boolean andResult = true;
+                for (SQLTerm sqlTerm : andGroup) {
+                    if (!ColumnVector.test(tuple.get(sqlTerm._strColumnName), sqlTerm._strOperator, sqlTerm._objValue)) {
+                        andResult = false;
+                        break;
+                    }
+                }
+                orResult |= andResult;
+            }
+            result ^= orResult;
+        }
+        return condition.isEmpty() || result;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (currentTuples != null && (currentIndex = currentMatches.nextSetBit(currentIndex)) >= 0) {
+                next = currentTuples.get(currentIndex++);
+            } else if (serials.hasNext()) {
+                Page page = table.readPage(serials.next());
+                currentTuples = page == null ? null : page.getTuples();
+                currentMatches = page == null ? null : matches(page);
+                currentIndex = 0;
+            } else {
+                currentTuples = null;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Tuple next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Tuple tuple = next;
+        next = null;
+        return output == null ? tuple : tuple.project(output);
+    }
+}
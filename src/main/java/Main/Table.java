@@ -1,42 +1,103 @@
 package Main;
 
 import BTree.BTree;
+import BTree.BTreeCursor;
+import BTree.CompositeKey;
 import BTree.Pointer;
+import BTree.PostingList;
+import BTree.RecordId;
 import Exception.DBAppException;
+import Index.Bitmap;
+import Index.BitmapIndex;
+import Index.CuckooFilter;
+import Index.HashIndex;
+import Index.ValueIndex;
+import Utilities.BufferPool;
+import Utilities.IndexType;
+import Utilities.PageFormat;
 import Utilities.Serializer;
 import sql.SQLTerm;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
 
 @SuppressWarnings("unchecked")
 public class Table implements Serializable {
+    // Same as before the class evolved, so tables written by older versions can still be read
+    private static final long serialVersionUID = -5326385468527899385L;
+
     private final String tableName;
     private final String primaryKey;
     private final LinkedHashMap<String,String> attributes;
     private int size;
-    private final Vector<String> pageNames;
+    // Ids of the pages in the table's page file, ordered by the clustering key
+    private Vector<Integer> pageIds;
+    // Only set in tables written before pages moved into a single page file, converted to pageIds on load
+    private Vector<String> pageNames;
     private final Vector<String> bTrees;
     private final Vector<String> indexNames;
     private final Vector<Object[]> minMaxValues;
+    // Bounds and null counts of every column of each page, ordered like pageIds
+    // Null in tables written before zone maps existed, their pages get one once they change
+    private Vector<ZoneMap> zoneMaps;
+    // False positive rate of the Bloom filters of each column that has them, null in tables written before they existed
+    private LinkedHashMap<String,Double> bloomFilterRates;
+    // Clustering keys of every tuple, a key it doesn't hold can't be a duplicate so its page isn't searched for it
+    // Null until it's rebuilt from the pages, in tables written before it existed or after it got too full
+    private CuckooFilter keyFilter;
+    // Set once the keys didn't fit in a rebuilt filter, too many of them share a hash, every key may be a duplicate then
+    private boolean keyFilterUnusable;
+    // Bitmap and hash indices with their columns and types, null in tables written before these index types existed
+    private Vector<String> valueIndexColumns;
+    private Vector<String> valueIndexNames;
+    private Vector<IndexType> valueIndexTypes;
+
+    // Only set in tables written before indices had their own files, moved to loadedIndices on load
+    private List<BTree<?,String>> indices;
+    // Format used when pages are written, null for tables written before binary pages existed
+    private PageFormat pageFormat;
 
-    private final List<BTree<?,String>> indices;
+    // Set by DBApp once the table is resident, null for tables read directly from disk
+    private transient BufferPool bufferPool;
+    private transient ExecutorService ioExecutor;
+    // Built from attributes on first use, shared by every tuple inserted in the table
+    private transient Schema schema;
+    // Every index is in its own file and is only read the first time it's used, null until then
+    private transient List<BTree<?,String>> loadedIndices;
+    // Bitmap and hash indices are read the same way, null until they are used
+    private transient List<ValueIndex> loadedValueIndices;
+    // Loaded indices of both kinds modified since they were last written to their files
+    private transient Set<Object> modifiedIndices;
 
     public Table(String name, String primaryKeyColumn, LinkedHashMap<String, String> attributes) {
         this.tableName = name;
         this.primaryKey = primaryKeyColumn;
-        this.pageNames = new Vector<>();
+        this.pageIds = new Vector<>();
         this.attributes = attributes;
         this.size = 0;
         bTrees = new Vector<>();
         indexNames = new Vector<>();
         minMaxValues = new Vector<>();
-        indices = new ArrayList<>();
+        zoneMaps = new Vector<>();
+        bloomFilterRates = new LinkedHashMap<>();
+        keyFilter = new CuckooFilter(DBApp.pageSize);
+        valueIndexColumns = new Vector<>();
+        valueIndexNames = new Vector<>();
+        valueIndexTypes = new Vector<>();
+        loadedIndices = new ArrayList<>();
+        loadedValueIndices = new ArrayList<>();
+        modifiedIndices = Collections.newSetFromMap(new IdentityHashMap<>());
+        pageFormat = DBApp.binaryPages == 1 ? PageFormat.BINARY : PageFormat.JAVA;
         File pagesDir = new File("Pages/" + tableName);
         pagesDir.mkdirs();
     }
@@ -44,62 +105,283 @@ public class Table implements Serializable {
     /**
      * Helper Methods
      */
+    public void setBufferPool(BufferPool bufferPool){
+        this.bufferPool = bufferPool;
+    }
+    public void setIOExecutor(ExecutorService ioExecutor){
+        this.ioExecutor = ioExecutor;
+    }
+    // Method to get a page through the buffer pool, the page stays pinned until it's written or released
+    private Page fetchPage(int serial){
+        if(bufferPool == null){
+            return Serializer.deserializePage(tableName,serial);
+        }
+        return bufferPool.fetch(this,serial);
+    }
+    // Method to get a page without pinning it, cached pages are used when available
+    Page readPage(int serial){
+        Page page = bufferPool == null ? null : bufferPool.peek(tableName,serial);
+        return page != null ? page : Serializer.deserializePage(tableName,serial);
+    }
+    // Method to mark a page as modified and unpin it, it's written to disk on eviction or flush
+    private void writePage(Page page){
+        if(bufferPool == null){
+            Serializer.serializePage(page,this);
+        }else {
+            bufferPool.release(this,page,true);
+        }
+    }
+    // Method to unpin a page that wasn't modified
+    private void releasePage(Page page){
+        if(bufferPool != null && page != null){
+            bufferPool.release(this,page,false);
+        }
+    }
+    // Method to drop a pinned page whose change failed halfway, it's read again from disk next time
+    private void discardPage(Page page){
+        if(bufferPool != null && page != null){
+            bufferPool.discard(tableName,page.getSerial());
+        }
+    }
+    // Method to record the clustering key bounds and the zone map of the page at a position of pageIds
+    private void setPageBounds(int position, Page page){
+        minMaxValues.set(position,page.getMinMax(primaryKey));
+        zoneMaps.set(position,page.getZoneMap(getSchema(),bloomFilterRates));
+    }
+    // Same for a page inserted at a position of pageIds
+    private void addPageBounds(int position, Page page){
+        minMaxValues.add(position,page.getMinMax(primaryKey));
+        zoneMaps.add(position,page.getZoneMap(getSchema(),bloomFilterRates));
+    }
+    // Method to get the filter over the clustering keys, it's rebuilt from the pages with room for as many keys again
+    // Null if the filter is unusable
+    private CuckooFilter keyFilter(){
+        if(keyFilter == null && !keyFilterUnusable){
+            CuckooFilter filter = new CuckooFilter(Math.max(2 * size, DBApp.pageSize));
+            for (int pageId : pageIds) {
+                for (Tuple tuple : readPage(pageId).getTuples()) {
+                    // Half empty, a key only misses its slots if it shares its hash with many others
+                    if(!filter.add(tuple.getPrimaryKeyValue())){
+                        keyFilterUnusable = true;
+                        return null;
+                    }
+                }
+            }
+            keyFilter = filter;
+        }
+        return keyFilter;
+    }
+    // Method to add a new clustering key to the filter, a filter without room for it is dropped and rebuilt when it's next used
+    private void addKey(Object primaryKeyVal){
+        if(keyFilter != null && !keyFilter.add(primaryKeyVal)){
+            keyFilter = null;
+        }
+    }
+    // Method to check whether a tuple may have the clustering key, only then its page has to be searched for it
+    public boolean mayContainKey(Object primaryKeyVal){
+        CuckooFilter filter = keyFilter();
+        return filter == null || filter.mightContain(primaryKeyVal);
+    }
+    // Method to delete the file of a page along with its cached copy
+    private void removePage(int serial){
+        if(bufferPool != null){
+            bufferPool.discard(tableName,serial);
+        }
+        Serializer.deletePage(tableName,serial);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if(pageIds == null){
+            pageIds = new Vector<>();
+            for (String pageName : pageNames) {
+                pageIds.add(Integer.parseInt(pageName.substring(tableName.length(), pageName.length() - 4)));
+            }
+            pageNames = null;
+        }
+        if(zoneMaps == null){
+            zoneMaps = new Vector<>(Collections.nCopies(pageIds.size(), null));
+        }
+        if(bloomFilterRates == null){
+            bloomFilterRates = new LinkedHashMap<>();
+        }
+        if(valueIndexColumns == null){
+            valueIndexColumns = new Vector<>();
+            valueIndexNames = new Vector<>();
+            valueIndexTypes = new Vector<>();
+        }
+        loadedIndices = new ArrayList<>(Collections.nCopies(indexNames.size(), null));
+        loadedValueIndices = new ArrayList<>(Collections.nCopies(valueIndexNames.size(), null));
+        modifiedIndices = Collections.newSetFromMap(new IdentityHashMap<>());
+        if(indices != null){
+            // Written inside the table by an older version, they get their own files the next time the table is written
+            loadedIndices = new ArrayList<>(indices);
+            modifiedIndices.addAll(indices);
+            indices = null;
+        }
+    }
+
+    public String getTableName(){
+        return tableName;
+    }
+    public PageFormat getPageFormat(){
+        return pageFormat == null ? PageFormat.JAVA : pageFormat;
+    }
+    // Method to switch the format of the pages, every existing page is rewritten in the new format
+    public void setPageFormat(PageFormat pageFormat){
+        this.pageFormat = pageFormat;
+        for (int pageId : pageIds) {
+            Page page = fetchPage(pageId);
+            writePage(page);
+        }
+    }
+
     public boolean isEmpty(){
-        return pageNames.size() == 0;
+        return pageIds.size() == 0;
     }
     public int getSize(){
         return size;
     }
-    // Method to get all the actual pages of a table
+    // Method to get all the actual pages of a table, pages are read in parallel on the app's I/O executor
     public List<Page> getPages(String tableName){
-        try {
-            ExecutorService executorService = Executors.newFixedThreadPool(10);
-            List<Future<Page>> futures = new ArrayList<>();
-            for (String pageName : pageNames) {
-                futures.add(executorService.submit(() -> Serializer.deserializePage(tableName, Integer.parseInt(pageName.substring(tableName.length(), pageName.length() - 4)))));
+        return getPages(pageIds);
+    }
+    private List<Page> getPages(List<Integer> serials){
+        if(ioExecutor == null || ioExecutor.isShutdown()){
+            List<Page> pages = new ArrayList<>();
+            for (int pageId : serials) {
+                pages.add(readPage(pageId));
             }
-
+            return pages;
+        }
+        List<Future<Page>> futures = new ArrayList<>();
+        for (int pageId : serials) {
+            futures.add(ioExecutor.submit(() -> readPage(pageId)));
+        }
+        try {
             List<Page> pages = new ArrayList<>();
             for (Future<Page> future : futures) {
                 pages.add(future.get());
             }
-            pages.sort(Comparator.comparingInt(Page::getSerial));
             return pages;
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the pages of " + tableName, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Couldn't read the pages of " + tableName, e.getCause());
+        } finally {
+            // Reads that didn't finish aren't needed once one failed
+            for (Future<Page> future : futures) {
+                future.cancel(true);
+            }
         }
-        return null;
     }
+    // Method to get every index of the table, reading the ones that weren't used yet
     public List<BTree<?,String>> getBTrees() {
-        return indices;
+        List<BTree<?,String>> all = new ArrayList<>();
+        for (int i = 0; i < indexNames.size(); i++) {
+            all.add(index(i));
+        }
+        return all;
+    }
+
+    // Method to get the i-th index, it's read from its file the first time
+    private BTree<?,String> index(int i) {
+        BTree<?,String> index = loadedIndices.get(i);
+        if (index == null) {
+            index = Serializer.deserializeIndex(tableName, indexNames.get(i));
+            loadedIndices.set(i, index);
+        }
+        return index;
+    }
+
+    // Method to get the i-th bitmap or hash index, it's read from its file the first time
+    private ValueIndex valueIndex(int i) {
+        ValueIndex index = loadedValueIndices.get(i);
+        if (index == null) {
+            index = Serializer.deserializeIndex(tableName, valueIndexNames.get(i), valueIndexTypes.get(i));
+            loadedValueIndices.set(i, index);
+        }
+        return index;
+    }
+
+    // Method to write the modified indices to their files, before the table itself is serialized
+    public void flushIndices() {
+        for (BTree<?, String> index : loadedIndices) {
+            if (index != null && modifiedIndices.contains(index)) {
+                index.flush();
+                Serializer.serializeIndex(index, tableName);
+            }
+        }
+        for (ValueIndex index : loadedValueIndices) {
+            if (index != null && modifiedIndices.contains(index)) {
+                Serializer.serializeIndex(index, tableName);
+            }
+        }
+        modifiedIndices.clear();
     }
+
     public BTree<?, String> getBTree(String colName) {
         if(bTrees.contains(colName+"Index")){
             for (int i = 0;i<bTrees.size();i++){
                 if((colName + "Index").equals(bTrees.get(i))){
-                    return indices.get(i);
+                    return index(i);
                 }
             }
         }
         return null;
     }
     public Page getPageAtPosition(int position){
-        pageNames.sort(Comparator.comparing(s -> Integer.parseInt(s.substring(tableName.length(),s.length()-4))));
-        String pageName = pageNames.get(position);
-        return Serializer.deserializePage(tableName,Integer.parseInt( pageName.substring(tableName.length(),pageName.length()-4) ) );
+        return readPage(pageIds.get(position));
+    }
+    public BitmapIndex getBitmapIndex(String colName) {
+        int i = findValueIndex(colName, IndexType.BITMAP);
+        return i < 0 ? null : (BitmapIndex) valueIndex(i);
+    }
+    public HashIndex getHashIndex(String colName) {
+        int i = findValueIndex(colName, IndexType.HASH);
+        return i < 0 ? null : (HashIndex) valueIndex(i);
+    }
+    // Method to find the position of the index of a type on a column, -1 if there's none
+    private int findValueIndex(String colName, IndexType indexType) {
+        for (int i = 0; i < valueIndexColumns.size(); i++) {
+            if (valueIndexColumns.get(i).equals(colName) && valueIndexTypes.get(i) == indexType) {
+                return i;
+            }
+        }
+        return -1;
     }
     private boolean doesIndexExist(String colName){
         return bTrees.contains(colName+"Index");
     }
-    public Vector<String> getPageNames() {
-        return pageNames;
+    // Method to check if a term can be answered from a bitmap index
+    private boolean hasBitmapFor(SQLTerm sqlTerm){
+        return (sqlTerm._strOperator.equals("=") || sqlTerm._strOperator.equals("!=")) && findValueIndex(sqlTerm._strColumnName, IndexType.BITMAP) >= 0;
+    }
+    // Method to check if a term can be answered from a hash index
+    private boolean hasHashFor(SQLTerm sqlTerm){
+        return sqlTerm._strOperator.equals("=") && findValueIndex(sqlTerm._strColumnName, IndexType.HASH) >= 0;
     }
+    public Vector<Integer> getPageIds() {
+        return pageIds;
+    }
+    // Names of the indices of every type
     public Vector<String> getIndexNames(){
-        return indexNames;
+        Vector<String> names = new Vector<>(indexNames);
+        names.addAll(valueIndexNames);
+        return names;
     }
     public String getPrimaryKey() {
         return primaryKey;
     }
+    public Schema getSchema() {
+        if (schema == null) {
+            schema = new Schema(attributes, primaryKey);
+        }
+        return schema;
+    }
+
     public LinkedHashMap<String, String> getAttributes() {
         return attributes;
     }
@@ -134,122 +416,412 @@ public class Table implements Serializable {
                 case "java.lang.Double" -> ((BTree<Double,String>)bTree).getPageNumberForInsert((Double) htblColNameValue.get(primaryKey));
                 default -> 0;
             };
+            // The index gives the serial of the page, it's located among the pages of the table
+            serialToInsertIn = serialToInsertIn > 0 && pageIds.contains(serialToInsertIn)
+                    ? pageIds.indexOf(serialToInsertIn) + 1
+                    : findPageForCertainValue(htblColNameValue.get(primaryKey));
         }else {
             serialToInsertIn = findPageForCertainValue(htblColNameValue.get(primaryKey));
         }
-        if(pageNames.isEmpty()){
+        if(pageIds.isEmpty()){
             // Create a new page and insert the new tuple in it
             Page page = new Page(new Vector<>(),1);
-            page.insert(htblColNameValue, attributes, primaryKey);
-            pageNames.add(tableName + "1.ser");
-            Serializer.serializePage(page,tableName,1);
+            page.insert(htblColNameValue, getSchema());
+            pageIds.add(1);
+            writePage(page);
+            addKey(htblColNameValue.get(primaryKey));
             serialToInsertIn = 1;
-            minMaxValues.add(page.getMinMax(primaryKey));
+            addPageBounds(0, page);
         }else {
             // Figure out which page to insert the new tuple in
             int tmp = serialToInsertIn;
-            serialToInsertIn = Integer.parseInt(pageNames.get(serialToInsertIn-1).substring(tableName.length(),pageNames.get(serialToInsertIn-1).length()-4));
-            Page page = Serializer.deserializePage(tableName,serialToInsertIn);
+            serialToInsertIn = pageIds.get(serialToInsertIn-1);
+            Page page = fetchPage(serialToInsertIn);
             assert page != null;
             // If the primary key does not exist, it returns -1, throw an exception
-            if(page.binarySearchString(htblColNameValue.get(primaryKey)) != -1){
+            // Brand-new keys aren't in the filter so the page is only searched for possible duplicates
+            if(mayContainKey(htblColNameValue.get(primaryKey)) && page.binarySearchString(htblColNameValue.get(primaryKey)) != -1){
+                releasePage(page);
                 throw new DBAppException("Primary key already exists");
             }
-            // If the page is full, shift values to other pages, else insert the new tuple in the page
-            if(page.isFull()){
-                shiftValuesToOtherPages(serialToInsertIn,tableName,htblColNameValue);
+            addKey(htblColNameValue.get(primaryKey));
+            // If the page is full, split it or shift values to other pages, else insert the new tuple in the page
+            if(page.isFull() && DBApp.splitPagesOnInsert == 1){
+                splitPage(tmp, page, htblColNameValue);
+                size++;
+                return;
+            }else if(page.isFull()){
+                releasePage(page);
+                shiftValuesToOtherPages(tmp,tableName,htblColNameValue);
+                // Shifting only maintains the indices pointing to pages
+                insertIntoBtrees(htblColNameValue, 0, BTree::hasLogicalPointers);
+                insertIntoValueIndices(htblColNameValue);
                 size++;
                 return;
             }else{
-                page.insert(htblColNameValue,attributes, primaryKey);
-                Serializer.serializePage(page,tableName,serialToInsertIn);
-                minMaxValues.set(tmp-1,page.getMinMax(primaryKey));
+                try {
+                    page.insert(htblColNameValue, getSchema());
+                } finally {
+                    writePage(page);
+                }
+                setPageBounds(tmp-1, page);
             }
         }
         size++;
-        insertIntoBtrees(htblColNameValue,serialToInsertIn);
+        insertIntoIndices(htblColNameValue,serialToInsertIn);
+    }
+
+    // Method to add a new tuple to every index
+    private void insertIntoIndices(Hashtable<String,Object> htblColNameValue,int serialToInsertIn) {
+        insertIntoBtrees(htblColNameValue, serialToInsertIn, index -> true);
+        insertIntoValueIndices(htblColNameValue);
     }
 
-    private void insertIntoBtrees(Hashtable<String,Object> htblColNameValue,int serialToInsertIn) {
+    // Bitmap and hash indices only hold clustering keys so they never change when tuples move between pages
+    private void insertIntoValueIndices(Hashtable<String,Object> htblColNameValue) {
+        for (int i = 0; i < valueIndexColumns.size(); i++) {
+            valueIndex(i).insert(htblColNameValue.get(valueIndexColumns.get(i)), htblColNameValue.get(primaryKey));
+            modifiedIndices.add(valueIndex(i));
+        }
+    }
+
+    private void insertIntoBtrees(Hashtable<String,Object> htblColNameValue,int serialToInsertIn,Predicate<BTree<?,String>> which) {
         for (int i = 0;i<bTrees.size();i++) {
             String bTree = bTrees.get(i);
             String colName = bTree.replace("Index","");
-            String type = attributes.get(colName);
+            if (which.test(index(i))) {
+                indexInsert(index(i), indexKey(colName, htblColNameValue::get), serialToInsertIn, htblColNameValue.get(primaryKey));
+            }
+        }
+    }
+
+    // Method to add the entry of a tuple to an index, as a record id if the index stores them
+    private <TKey extends Comparable<TKey>> void indexInsert(BTree<?,String> index, Object key, int serial, Object primaryKeyVal) {
+        BTree<TKey,String> bTree = (BTree<TKey,String>) index;
+        modifiedIndices.add(index);
+        if (bTree.hasRecordIds()) {
+            bTree.insert((TKey) key, recordIdOf(bTree, serial, primaryKeyVal));
+        } else {
+            bTree.insert((TKey) key, pointerTo(bTree, serial, primaryKeyVal));
+        }
+    }
+
+    // Method to remove the entry of a tuple from an index
+    private <TKey extends Comparable<TKey>> void indexDelete(BTree<?,String> index, Object key, int serial, Object primaryKeyVal) {
+        BTree<TKey,String> bTree = (BTree<TKey,String>) index;
+        modifiedIndices.add(index);
+        if (bTree.hasRecordIds()) {
+            bTree.delete((TKey) key, recordIdOf(bTree, serial, primaryKeyVal));
+        } else {
+            bTree.delete((TKey) key, pointerTo(bTree, serial, primaryKeyVal));
+        }
+    }
 
-            switch (type) {
-                case "java.lang.String" ->
-                        ((BTree<String, String>) indices.get(i)).insert((String) htblColNameValue.get(colName), serialToInsertIn + "-" + htblColNameValue.get(primaryKey));
-                case "java.lang.Integer" ->
-                        ((BTree<Integer, String>) indices.get(i)).insert((Integer) htblColNameValue.get(colName), serialToInsertIn + "-" + htblColNameValue.get(primaryKey));
-                case "java.lang.Double" ->
-                        ((BTree<Double, String>) indices.get(i)).insert((Double) htblColNameValue.get(colName), serialToInsertIn + "-" + htblColNameValue.get(primaryKey));
+    /**
+     * Passes the clustering key and the page serial of every index entry whose key is between lo and hi to the action,
+     * a null bound leaves the range open on that side. Record ids are unpacked without parsing, string values are parsed.
+     */
+    private <TKey extends Comparable<TKey>> void forEachIndexEntry(BTree<?,String> index, Object lo, boolean loInclusive,
+                                                                   Object hi, boolean hiInclusive, ObjIntConsumer<Object> action) {
+        BTree<TKey,String> bTree = (BTree<TKey,String>) index;
+        BTreeCursor<TKey,String> cursor = bTree.range((TKey) lo, loInclusive, (TKey) hi, hiInclusive);
+        while (cursor.hasNext()) {
+            cursor.next();
+            if (bTree.hasRecordIds()) {
+                cursor.forEachRecordId(recordId -> {
+                    int primaryKeyVal = RecordId.primaryKey(recordId);
+                    int serial = RecordId.pageSerial(recordId);
+                    action.accept(primaryKeyVal, serial == 0 ? pageIds.get(findPageForCertainValue(primaryKeyVal) - 1) : serial);
+                });
+            } else {
+                for (String value : cursor.values()) {
+                    action.accept(pointerPrimaryKey(bTree, value), pointerSerial(bTree, value));
+                }
             }
         }
     }
 
+    // Method to get the record id of a tuple in an index storing them, only tables with an Integer clustering key have them
+    private long recordIdOf(BTree<?,String> index, int serial, Object primaryKeyVal) {
+        return RecordId.of(index.hasLogicalPointers() ? 0 : serial, (Integer) primaryKeyVal);
+    }
+
+    // Method to get the value stored in an index for a tuple, logical indices only store the clustering key
+    private String pointerTo(BTree<?,String> index, int serial, Object primaryKeyVal) {
+        return index.hasLogicalPointers() ? String.valueOf(primaryKeyVal) : serial + "-" + primaryKeyVal;
+    }
+
+    // Method to get the clustering key an index value points to
+    private Object pointerPrimaryKey(BTree<?,String> index, String pointer) {
+        String primaryKeyVal = index.hasLogicalPointers() ? pointer : pointer.substring(pointer.indexOf('-') + 1);
+        return getParsedPrimaryKey(attributes.get(primaryKey), primaryKeyVal);
+    }
+
+    // Method to get the serial of the page an index value points to, logical values are located by their clustering key
+    private int pointerSerial(BTree<?,String> index, String pointer) {
+        if (index.hasLogicalPointers()) {
+            return pageIds.get(findPageForCertainValue(pointerPrimaryKey(index, pointer)) - 1);
+        }
+        return Integer.parseInt(pointer.substring(0, pointer.indexOf('-')));
+    }
+
+    // Method to get the key of a tuple in an index, an index on several columns has their names separated by commas
+    private Object indexKey(String colName, Function<String,Object> values) {
+        if (!colName.contains(",")) {
+            return values.apply(colName);
+        }
+        String[] columns = colName.split(",");
+        Object[] key = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            key[i] = values.apply(columns[i]);
+        }
+        return CompositeKey.of(key);
+    }
+
+    /**
+     * Inserts a batch of tuples in a single pass over the table.
+     * The batch is sorted by the clustering key and merged with the existing pages, which are rewritten in order
+     * with every page filled up to the bulk load fill factor, then the indices pointing to pages are rebuilt from the new pages.
+     * Nothing is changed if one of the tuples is invalid or its clustering key already exists.
+     */
+    public void bulkInsert(Iterator<Hashtable<String,Object>> rows) throws DBAppException {
+        List<Tuple> batch = new ArrayList<>();
+        while (rows.hasNext()) {
+            Hashtable<String,Object> row = rows.next();
+            if(!row.containsKey(primaryKey)){
+                throw new DBAppException("Primary key is not found");
+            }
+            if(!checkColumnsExist(row)){
+                throw new DBAppException("Tuple contains columns that aren't in the table");
+            }
+            batch.add(Page.createTuple(row, getSchema()));
+        }
+        if(batch.isEmpty()){
+            return;
+        }
+        Comparator<Tuple> byPrimaryKey = (tuple1, tuple2) -> compareTwoValues(tuple1.getPrimaryKeyValue(), tuple2.getPrimaryKeyValue());
+        batch.sort(byPrimaryKey);
+        for (int i = 1; i < batch.size(); i++) {
+            if(byPrimaryKey.compare(batch.get(i-1), batch.get(i)) == 0){
+                throw new DBAppException("Primary key already exists");
+            }
+        }
+        checkKeysDontExist(batch);
+        for (Tuple tuple : batch) {
+            addKey(tuple.getPrimaryKeyValue());
+        }
+
+        // Page ids are reused from 1, an old page is always read before the new page with its id is written
+        int rowsPerPage = Math.max(1, Math.min(DBApp.pageSize, DBApp.pageSize * DBApp.bulkLoadFillFactor / 100));
+        Vector<Integer> oldPageIds = new Vector<>(pageIds);
+        HashMap<Integer, Integer> oldPositions = new HashMap<>();
+        for (int i = 0; i < oldPageIds.size(); i++) {
+            oldPositions.put(oldPageIds.get(i), i);
+        }
+        ArrayDeque<Tuple> oldTuples = new ArrayDeque<>();
+        int nextOldPage = 0;
+        int nextBatchTuple = 0;
+        pageIds.clear();
+        minMaxValues.clear();
+        zoneMaps.clear();
+        Vector<Tuple> tuples = new Vector<>(rowsPerPage);
+        while (true) {
+            while (oldTuples.isEmpty() && nextOldPage < oldPageIds.size()) {
+                oldTuples.addAll(readPage(oldPageIds.get(nextOldPage++)).getTuples());
+            }
+            if (oldTuples.isEmpty() && nextBatchTuple == batch.size()) {
+                break;
+            }
+            if (nextBatchTuple == batch.size()
+                    || (!oldTuples.isEmpty() && byPrimaryKey.compare(oldTuples.peek(), batch.get(nextBatchTuple)) < 0)) {
+                tuples.add(oldTuples.poll());
+            } else {
+                tuples.add(batch.get(nextBatchTuple++));
+            }
+            if (tuples.size() == rowsPerPage) {
+                Integer overwrittenPosition = oldPositions.get(pageIds.size() + 1);
+                while (overwrittenPosition != null && nextOldPage <= overwrittenPosition) {
+                    oldTuples.addAll(readPage(oldPageIds.get(nextOldPage++)).getTuples());
+                }
+                appendPage(tuples);
+                tuples = new Vector<>(rowsPerPage);
+            }
+        }
+        if (!tuples.isEmpty()) {
+            appendPage(tuples);
+        }
+        for (int oldPageId : oldPageIds) {
+            if (oldPageId > pageIds.size()) {
+                removePage(oldPageId);
+            }
+        }
+        size += batch.size();
+
+        // Tuples moved to other pages so indices pointing to pages are rebuilt, logical ones only get the new tuples
+        for (int i = 0; i < bTrees.size(); i++) {
+            if (!index(i).hasLogicalPointers()) {
+                loadedIndices.set(i, buildIndex(bTrees.get(i).replace("Index", ""), indexNames.get(i), false));
+                modifiedIndices.add(loadedIndices.get(i));
+            }
+        }
+        for (Tuple tuple : batch) {
+            Hashtable<String,Object> values = new Hashtable<>();
+            tuple.getValues().forEach((column, value) -> {
+                if (value != null) {
+                    values.put(column, value);
+                }
+            });
+            insertIntoBtrees(values, 0, BTree::hasLogicalPointers);
+            insertIntoValueIndices(values);
+        }
+    }
+
+    // Method to write the next page of a bulk insert after the last page of the table
+    private void appendPage(Vector<Tuple> tuples) {
+        Page page = new Page(tuples, pageIds.size() + 1);
+        writePage(page);
+        pageIds.add(page.getSerial());
+        addPageBounds(pageIds.size() - 1, page);
+    }
+
+    // Method to check that none of the sorted tuples has a clustering key that already exists, the pages are visited
+    // in order and only the ones whose range covers one of the keys that may be in the key filter are read
+    private void checkKeysDontExist(List<Tuple> sortedTuples) throws DBAppException {
+        int next = 0;
+        for (int position = 0; position < pageIds.size() && next < sortedTuples.size(); position++) {
+            Object[] minMax = minMaxValues.get(position);
+            while (next < sortedTuples.size() && compareTwoValues(sortedTuples.get(next).getPrimaryKeyValue(), minMax[0]) < 0) {
+                next++;
+            }
+            Page page = null;
+            while (next < sortedTuples.size() && compareTwoValues(sortedTuples.get(next).getPrimaryKeyValue(), minMax[1]) <= 0) {
+                if (!mayContainKey(sortedTuples.get(next).getPrimaryKeyValue())) {
+                    next++;
+                    continue;
+                }
+                if (page == null) {
+                    page = readPage(pageIds.get(position));
+                }
+                if (page.binarySearchString(sortedTuples.get(next).getPrimaryKeyValue()) != -1) {
+                    throw new DBAppException("Primary key already exists");
+                }
+                next++;
+            }
+        }
+    }
+
+    /**
+     * Splits a full page in two to make room for a new tuple.
+     * The upper half of the tuples moves to a page with a new serial placed right after the full page,
+     * so only these two pages are written and only the pointers of the moved tuples change in the indices.
+     */
+    private void splitPage(int position, Page page, Hashtable<String, Object> values) throws DBAppException {
+        Tuple tuple;
+        try {
+            tuple = Page.createTuple(values, getSchema());
+        } catch (DBAppException e) {
+            releasePage(page);
+            throw e;
+        }
+        Vector<Tuple> movedTuples = new Vector<>();
+        while (page.getSize() > DBApp.pageSize / 2) {
+            movedTuples.add(page.removeLastTuple());
+        }
+        Collections.reverse(movedTuples);
+        Page newPage = new Page(movedTuples, nextPageId());
+        for (Tuple movedTuple : movedTuples) {
+            movePointers(movedTuple, page.getSerial(), newPage.getSerial());
+        }
+        Page pageToInsertIn = compareTwoValues(tuple.getPrimaryKeyValue(), movedTuples.get(0).getPrimaryKeyValue()) < 0 ? page : newPage;
+        pageToInsertIn.addTuple(tuple);
+        writePage(page);
+        writePage(newPage);
+        pageIds.add(position, newPage.getSerial());
+        setPageBounds(position - 1, page);
+        addPageBounds(position, newPage);
+        insertIntoIndices(values, pageToInsertIn.getSerial());
+    }
+
+    // Method to point the index entries of a tuple to the page it moved to, logical entries don't change
+    private void movePointers(Tuple tuple, int fromSerial, int toSerial) {
+        for (int i = 0; i < bTrees.size(); i++) {
+            if (index(i).hasLogicalPointers()) {
+                continue;
+            }
+            String colName = bTrees.get(i).replace("Index", "");
+            indexDelete(index(i), indexKey(colName, tuple::get), fromSerial, tuple.getPrimaryKeyValue());
+            indexInsert(index(i), indexKey(colName, tuple::get), toSerial, tuple.getPrimaryKeyValue());
+        }
+    }
+
+    // Method to get an unused page serial, serials don't follow the order of the pages once pages are split
+    private int nextPageId() {
+        int max = 0;
+        for (int pageId : pageIds) {
+            max = Math.max(max, pageId);
+        }
+        return max + 1;
+    }
+
     // Method to shift values to other pages if there's no space
-    public void shiftValuesToOtherPages(int serial, String tableName, Hashtable<String, Object> values) throws DBAppException {
-        int index = serial;
-        Page checkPage = Serializer.deserializePage(tableName,serial);
+    public void shiftValuesToOtherPages(int position, String tableName, Hashtable<String, Object> values) throws DBAppException {
+        // The types are checked before any page changes, a full page would lose the tuple it makes room with otherwise
+        Page.createTuple(values, getSchema());
+        int index = position;
+        Page checkPage = fetchPage(pageIds.get(position-1));
         assert checkPage != null;
         Object primaryKeyVal = checkPage.getLastTuple().getPrimaryKeyValue();
+        releasePage(checkPage);
         // If the value to be inserted is larger than the last value in the page,
         // create a new page and shift the values from other pages to it
         switch (attributes.get(primaryKey)){
             case "java.lang.String" -> {
                 if(String.valueOf(primaryKeyVal).compareTo(String.valueOf(values.get(primaryKey))) < 0){
-                    if(serial <= pageNames.size()){
+                    if(position <= pageIds.size()){
                         index++;
                     }
                 }
             }
             case "java.lang.Integer" -> {
                 if(Integer.parseInt(primaryKeyVal.toString()) < Integer.parseInt(String.valueOf(values.get(primaryKey)))){
-                    if(serial <= pageNames.size()){
+                    if(position <= pageIds.size()){
                         index++;
                     }
                 }
             }
             case "java.lang.Double" -> {
                 if(Double.parseDouble(primaryKeyVal.toString()) < Double.parseDouble(String.valueOf(values.get(primaryKey)))){
-                    if(serial <= pageNames.size()){
+                    if(position <= pageIds.size()){
                         index++;
                     }
                 }
             }
         }
 
-        for (int i = index;i<=pageNames.size();i++) {
-            index = Integer.parseInt(pageNames.get(i-1).substring(tableName.length(),pageNames.get(i-1).length()-4));
-            Page page = Serializer.deserializePage(tableName,index);
+        for (int i = index;i<=pageIds.size();i++) {
+            index = pageIds.get(i-1);
+            Page page = fetchPage(index);
             if (!Objects.requireNonNull(page).isFull()) {
                 for (int j = 0;j<bTrees.size();j++) {
                     String bTree = bTrees.get(j);
                     String colName = bTree.replace("Index","");
-                    String type = attributes.get(colName);
-
-                    switch (type){
-                        case "java.lang.String" -> {
-                            BTree<String, String> bTree1 = (BTree<String, String>) indices.get(j);
-                            bTree1.insert((String) values.get(colName),page.getSerial() + "-" + values.get(primaryKey));
-                        }
-                        case "java.lang.Integer" -> {
-                            BTree<Integer, String> bTree1 = (BTree<Integer, String>) indices.get(j);
-                            bTree1.insert((int) values.get(colName),page.getSerial() + "-" + values.get(primaryKey));
-                        }
-                        case "java.lang.Double" -> {
-                            BTree<Double, String> bTree1 = (BTree<Double, String>) indices.get(j);
-                            bTree1.insert((double) values.get(colName),page.getSerial() + "-" + values.get(primaryKey));
-                        }
+                    if(index(j).hasLogicalPointers()){
+                        continue;
                     }
+                    indexInsert(index(j), indexKey(colName, values::get), page.getSerial(), values.get(primaryKey));
                 }
-                page.insert(values,attributes, primaryKey);
-                Serializer.serializePage(page,tableName,page.getSerial());
-                minMaxValues.set(i-1,page.getMinMax(primaryKey));
+                page.insert(values, getSchema());
+                writePage(page);
+                setPageBounds(i-1, page);
                 return;
             }else{
                 HashMap<String, Object> lastTupleData = page.removeLastTuple().getValues();
-                page.insert(values,attributes, primaryKey);
+                try {
+                    page.insert(values, getSchema());
+                } catch (DBAppException | RuntimeException e) {
+                    discardPage(page);
+                    throw e;
+                }
                 Hashtable<String, Object> lastTuple = new Hashtable<>();
                 for(Map.Entry<String, String> entry : attributes.entrySet()) {
                     String key = entry.getKey();
@@ -259,57 +831,29 @@ public class Table implements Serializable {
                         case "java.lang.String" -> lastTuple.put(key, lastTupleData.get(key).toString());
                         case "java.lang.Double" -> lastTuple.put(key, Double.parseDouble(lastTupleData.get(key).toString()));
                     }
-                    if(doesIndexExist(key)){
-                        int btreeIndex = 0;
-                        for (int j = 0;j<bTrees.size();j++) {
-                            if(Objects.equals(indices.get(j).getColName(), key)){
-                                btreeIndex = j;
-                            }
-                        }
-                        switch (attributes.get(key)) {
-                            case "java.lang.Integer" -> {
-                                BTree<Integer, String> bTree = (BTree<Integer, String>) indices.get(btreeIndex);
-                                if(key.equals(primaryKey)){
-                                    bTree.delete((Integer)lastTupleData.get(key));
-                                }else {
-                                    bTree.delete((Integer)lastTupleData.get(key),page.getSerial() + "-" + lastTuple.get(primaryKey));
-                                }
-                                bTree.insert((Integer) values.get(key),page.getSerial() + "-" + values.get(primaryKey));
-                            }
-                            case "java.lang.String" -> {
-                                BTree<String, String> bTree = (BTree<String, String>) indices.get(btreeIndex);
-                                if(key.equals(primaryKey)){
-                                    bTree.delete((String) lastTupleData.get(key));
-                                }else {
-                                    bTree.delete((String) lastTupleData.get(key),page.getSerial() + "-" + lastTuple.get(primaryKey));
-                                }
-                                bTree.insert((String) values.get(key),page.getSerial() + "-" + values.get(primaryKey));
-                            }
-                            case "java.lang.Double" -> {
-                                BTree<Double, String> bTree = (BTree<Double, String>) indices.get(btreeIndex);
-                                if(key.equals(primaryKey)){
-                                    bTree.delete((Double) lastTupleData.get(key));
-                                }else {
-                                    bTree.delete((Double) lastTupleData.get(key),page.getSerial() + "-" + lastTuple.get(primaryKey));
-                                }
-                                bTree.insert((Double) values.get(key),page.getSerial() + "-" + values.get(primaryKey));
-                            }
-                        }
+                }
+                // The last tuple left the page and the new one took its place
+                for (int j = 0; j < bTrees.size(); j++) {
+                    if(index(j).hasLogicalPointers()){
+                        continue;
                     }
+                    String colName = bTrees.get(j).replace("Index","");
+                    indexDelete(index(j), indexKey(colName, lastTupleData::get), page.getSerial(), lastTupleData.get(primaryKey));
+                    indexInsert(index(j), indexKey(colName, values::get), page.getSerial(), values.get(primaryKey));
                 }
                 values = lastTuple;
-                Serializer.serializePage(page,tableName,page.getSerial());
-                minMaxValues.set(i-1,page.getMinMax(primaryKey));
+                writePage(page);
+                setPageBounds(i-1, page);
             }
         }
         // If no page has space, create a new page and insert the new string
-        int newPageId = Integer.parseInt(pageNames.get(pageNames.size()-1).substring(tableName.length(),pageNames.get(pageNames.size()-1).length()-4)) + 1; // Assuming page ids start from 1
+        int newPageId = nextPageId();
         Page newPage = new Page(new Vector<>(), newPageId);
-        newPage.insert(values, attributes, primaryKey);
-        insertIntoBtrees(values,newPageId);
-        Serializer.serializePage(newPage,tableName,newPageId);
-        pageNames.add(tableName + newPageId + ".ser");
-        minMaxValues.add(newPage.getMinMax(primaryKey));
+        newPage.insert(values, getSchema());
+        insertIntoBtrees(values,newPageId,bTree -> !bTree.hasLogicalPointers());
+        writePage(newPage);
+        pageIds.add(newPageId);
+        addPageBounds(pageIds.size() - 1, newPage);
     }
 
     // Method to update a certain tuple
@@ -327,39 +871,40 @@ public class Table implements Serializable {
             default -> throw new IllegalStateException("Unexpected value: " + attributes.get(this.primaryKey));
         };
         int pageToUpdateIn = findPageForCertainValue(value);
-        pageToUpdateIn = Integer.parseInt(pageNames.get(pageToUpdateIn-1).substring(tableName.length(),pageNames.get(pageToUpdateIn-1).length()-4));
-        Page page = Serializer.deserializePage(tableName,pageToUpdateIn);
+        pageToUpdateIn = pageIds.get(pageToUpdateIn-1);
+        Page page = fetchPage(pageToUpdateIn);
         assert page != null;
-        HashMap<String, Object> data = page.update(value, this.primaryKey, values, attributes);
-        Serializer.serializePage(page,tableName,page.getSerial());
-
-        if(!bTrees.isEmpty()){
-            List<BTree<?,String>> indices = getBTrees();
-            for (int i = 0;i<bTrees.size();i++) {
-                String bTree = bTrees.get(i);
-                String colName = bTree.replace("Index","");
-                String type = attributes.get(colName);
-                if(!values.containsKey(colName)){
-                    return;
-                }
+        HashMap<String, Object> data;
+        try {
+            data = page.update(value, this.primaryKey, values, attributes);
+        } catch (DBAppException e) {
+            // The values are checked before any is set, the page didn't change
+            releasePage(page);
+            throw e;
+        } catch (RuntimeException e) {
+            discardPage(page);
+            throw e;
+        }
+        setPageBounds(pageIds.indexOf(pageToUpdateIn), page);
+        writePage(page);
 
-                switch (type){
-                    case "java.lang.String" -> {
-                        BTree<String, String> bTree1 = (BTree<String, String>) indices.get(i);
-                        bTree1.delete((String)data.get(colName),pageToUpdateIn + "-" + primaryKey);
-                        bTree1.insert((String) values.get(colName),pageToUpdateIn + "-" + primaryKey);
-                    }
-                    case "java.lang.Integer" -> {
-                        BTree<Integer, String> bTree1 = (BTree<Integer, String>) indices.get(i);
-                        bTree1.delete((int) data.get(colName),pageToUpdateIn + "-" + primaryKey);
-                        bTree1.insert((int) values.get(colName),pageToUpdateIn + "-" + primaryKey);
-                    }
-                    case "java.lang.Double" -> {
-                        BTree<Double, String> bTree1 = (BTree<Double, String>) indices.get(i);
-                        bTree1.delete((double) data.get(colName),pageToUpdateIn + "-" + primaryKey);
-                        bTree1.insert((double) values.get(colName),pageToUpdateIn + "-" + primaryKey);
-                    }
-                }
+        // Only the indices of the updated columns are read
+        Function<String,Object> newData = colName -> values.containsKey(colName) ? values.get(colName) : data.get(colName);
+        for (int i = 0;i<bTrees.size();i++) {
+            String bTree = bTrees.get(i);
+            String colName = bTree.replace("Index","");
+            if(Collections.disjoint(Arrays.asList(colName.split(",")), values.keySet())){
+                continue;
+            }
+            indexDelete(index(i), indexKey(colName, data::get), pageToUpdateIn, value);
+            indexInsert(index(i), indexKey(colName, newData), pageToUpdateIn, value);
+        }
+        for (int i = 0; i < valueIndexColumns.size(); i++) {
+            String colName = valueIndexColumns.get(i);
+            if(values.containsKey(colName)){
+                valueIndex(i).delete(data.get(colName), value);
+                valueIndex(i).insert(values.get(colName), value);
+                modifiedIndices.add(valueIndex(i));
             }
         }
     }
@@ -367,15 +912,23 @@ public class Table implements Serializable {
     // Method to delete tuples
     public void deleteTuples(Hashtable<String, Object> values) throws DBAppException {
         if(values.isEmpty()){
-            File file = new File("Pages/" + tableName);
-            for (File f : Objects.requireNonNull(file.listFiles())) {
-                f.delete();
+            if(bufferPool != null){
+                bufferPool.discardTable(tableName);
             }
-            for (BTree<?, String> bTree : indices) {
+            Serializer.deletePages(tableName);
+            for (BTree<?, String> bTree : getBTrees()) {
                 bTree.deleteAll();
+                modifiedIndices.add(bTree);
             }
-            pageNames.clear();
+            for (int i = 0; i < valueIndexColumns.size(); i++) {
+                valueIndex(i).deleteAll();
+                modifiedIndices.add(valueIndex(i));
+            }
+            pageIds.clear();
             minMaxValues.clear();
+            zoneMaps.clear();
+            keyFilter = new CuckooFilter(DBApp.pageSize);
+            keyFilterUnusable = false;
             size = 0;
             return;
         }
@@ -391,21 +944,31 @@ public class Table implements Serializable {
             }
         }
         ArrayList<HashMap<Integer,Object>> results = new ArrayList<>();
-        List<Page> pages = getPages(tableName);
+        // Pages are only read if one of the conditions can't be answered from an index,
+        // and only the ones whose zone maps may hold every value
+        List<Page> pages = null;
         for (Map.Entry<String, Object> entry : values.entrySet()) {
             if(Objects.equals(entry.getKey(), primaryKey)){
                 int pageToDeleteFrom = findPageForCertainValue(entry.getValue());
-                pageToDeleteFrom = Integer.parseInt(pageNames.get(pageToDeleteFrom-1).substring(tableName.length(),pageNames.get(pageToDeleteFrom-1).length()-4));
-                Page page = Serializer.deserializePage(tableName,pageToDeleteFrom);
+                pageToDeleteFrom = pageIds.get(pageToDeleteFrom-1);
+                Page page = fetchPage(pageToDeleteFrom);
                 assert page != null;
                 int index = page.binarySearchString(entry.getValue());
                 if (index == -1){
+                    releasePage(page);
                     return;
                 }
                 Tuple tuple = page.getTuples().get(index);
                 deleteTuple(tuple.getPrimaryKeyValue(),page,pageToDeleteFrom);
                 return;
             }
+            if (pages == null && getHashIndex(entry.getKey()) == null && !doesIndexExist(entry.getKey())) {
+                List<Integer> serials = new ArrayList<>(pageIds);
+                for (Map.Entry<String, Object> term : values.entrySet()) {
+                    serials.retainAll(findZonePages(new SQLTerm(tableName, term.getKey(), "=", term.getValue())));
+                }
+                pages = getPages(serials);
+            }
             ArrayList<HashMap<Integer,Object>> satisfyingTuples = findTuplesSatisfyingCondition(entry, pages);
             if (satisfyingTuples.isEmpty()) {
                 return;
@@ -418,52 +981,29 @@ public class Table implements Serializable {
         }
         for (HashMap<Integer, Object> result : results) {
             int pageToDeleteFrom = (int) result.keySet().toArray()[0];
-            deleteTuple(result.values().toArray()[0], pages.get(pageNames.indexOf(tableName + pageToDeleteFrom + ".ser")), pageToDeleteFrom);
+            deleteTuple(result.values().toArray()[0], fetchPage(pageToDeleteFrom), pageToDeleteFrom);
         }
     }
 
     private ArrayList<HashMap<Integer,Object>> findTuplesSatisfyingCondition(Map.Entry<String,Object> entry, List<Page> pages) {
         ArrayList<HashMap<Integer,Object>> satisfyingTuples = new ArrayList<>();
-        if(doesIndexExist(entry.getKey())){
-            switch (attributes.get(entry.getKey())) {
-                case "java.lang.String" -> {
-                    BTree<String, String> bTree = (BTree<String, String>) getBTree(entry.getKey());
-                    LinkedList<Pointer<String, String>> pointers = bTree.getEqualKeys((String) entry.getValue());
-                    for (Pointer<String, String> pointer : pointers) {
-                        Page page = pages.get(Integer.parseInt(pointer.value().split("-")[0])-1);
-                        Tuple tuple = page.getTuples().get(page.binarySearchString(getParsedPrimaryKey(attributes.get(primaryKey),pointer.value().split("-")[1])));
-                        HashMap<Integer, Object> tupleData = new HashMap<>();
-                        tupleData.put(page.getSerial(), tuple.getPrimaryKeyValue());
-                        satisfyingTuples.add(tupleData);
-                    }
-                }
-                case "java.lang.Integer" -> {
-                    BTree<Integer, String> bTree = (BTree<Integer, String>) getBTree(entry.getKey());
-                    LinkedList<Pointer<Integer, String>> pointers = bTree.getEqualKeys((Integer) entry.getValue());
-                    for (Pointer<Integer, String> pointer : pointers) {
-                        Page page = pages.get(Integer.parseInt(pointer.value().split("-")[0])-1);
-                        Tuple tuple = page.getTuples().get(page.binarySearchString(getParsedPrimaryKey(attributes.get(primaryKey),pointer.value().split("-")[1])));
-                        HashMap<Integer, Object> tupleData = new HashMap<>();
-                        tupleData.put(page.getSerial(), tuple.getPrimaryKeyValue());
-                        satisfyingTuples.add(tupleData);
-                    }
-                }
-                case "java.lang.Double" -> {
-                    BTree<Double, String> bTree = (BTree<Double, String>) getBTree(entry.getKey());
-                    LinkedList<Pointer<Double, String>> pointers = bTree.getEqualKeys((Double) entry.getValue());
-                    for (Pointer<Double, String> pointer : pointers) {
-                        Page page = pages.get(Integer.parseInt(pointer.value().split("-")[0])-1);
-                        Tuple tuple = page.getTuples().get(page.binarySearchString(getParsedPrimaryKey(attributes.get(primaryKey),pointer.value().split("-")[1])));
-                        HashMap<Integer, Object> tupleData = new HashMap<>();
-                        tupleData.put(page.getSerial(), tuple.getPrimaryKeyValue());
-                        satisfyingTuples.add(tupleData);
-                    }
-                }
+        HashIndex hashIndex = getHashIndex(entry.getKey());
+        if(hashIndex != null){
+            for (Object primaryKeyVal : hashIndex.lookup(entry.getValue())) {
+                HashMap<Integer, Object> tupleData = new HashMap<>();
+                tupleData.put(pageIds.get(findPageForCertainValue(primaryKeyVal) - 1), primaryKeyVal);
+                satisfyingTuples.add(tupleData);
             }
+        }else if(doesIndexExist(entry.getKey())){
+            forEachIndexEntry(getBTree(entry.getKey()), entry.getValue(), true, entry.getValue(), true, (primaryKeyVal, serial) -> {
+                HashMap<Integer, Object> tupleData = new HashMap<>();
+                tupleData.put(serial, primaryKeyVal);
+                satisfyingTuples.add(tupleData);
+            });
         }else {
             for (Page page : pages) {
                 for (Tuple tuple : page.getTuples()) {
-                    if (tuple.getValues().get(entry.getKey()).equals(entry.getValue())) {
+                    if (tuple.get(entry.getKey()).equals(entry.getValue())) {
                         HashMap<Integer, Object> tupleData = new HashMap<>();
                         tupleData.put(page.getSerial(), tuple.getPrimaryKeyValue());
                         satisfyingTuples.add(tupleData);
@@ -487,14 +1027,14 @@ public class Table implements Serializable {
 
     // Method to delete a tuple
     private void deleteTuple(Object primaryKeyVal,Page page, int pageToDeleteFrom) throws DBAppException {
-        int index = pageNames.indexOf(tableName + pageToDeleteFrom + ".ser");
+        int index = pageIds.indexOf(pageToDeleteFrom);
         assert page != null;
         Vector<Tuple> tuples = page.getTuples();
         Tuple tuple = null;
         if(tuples.size() > 1){
             tuple = page.delete(primaryKeyVal);
-            Serializer.serializePage(page,tableName,page.getSerial());
-            minMaxValues.set(index,page.getMinMax(primaryKey));
+            writePage(page);
+            setPageBounds(index, page);
         }else{
             int comparisonResult = switch (attributes.get(primaryKey)) {
                 case "java.lang.Integer" -> Integer.compare((int) tuples.get(0).getPrimaryKeyValue(), (int) primaryKeyVal);
@@ -504,61 +1044,48 @@ public class Table implements Serializable {
             };
             if(tuples.size() != 0 && comparisonResult == 0){
                 tuple = page.delete(primaryKeyVal);
-                File file = new File("Pages/" + tableName + "/" + tableName + pageToDeleteFrom+".ser");
-                pageNames.remove(tableName+pageToDeleteFrom+".ser");
+                pageIds.remove((Integer) pageToDeleteFrom);
 
                 //updatePageNum = true;
-                file.delete();
+                removePage(pageToDeleteFrom);
                 minMaxValues.remove(index);
+                zoneMaps.remove(index);
             }
         }
         size--;
         assert tuple != null;
-        if(!bTrees.isEmpty()){
-            List<BTree<?,String>> indices = getBTrees();
-            for (int i = 0;i<bTrees.size();i++) {
-                String bTree = bTrees.get(i);
-                String colName = bTree.replace("Index","");
-                String type = attributes.get(colName);
-
-                switch (type){
-                    case "java.lang.String" -> {
-                        BTree<String, String> bTree1 = (BTree<String, String>) indices.get(i);
-                        bTree1.delete((String) tuple.getValues().get(colName),pageToDeleteFrom + "-" + tuple.getPrimaryKeyValue());
-                    }
-                    case "java.lang.Integer" -> {
-                        BTree<Integer, String> bTree1 = (BTree<Integer, String>) indices.get(i);
-                        bTree1.delete((int) tuple.getValues().get(colName),pageToDeleteFrom + "-" + tuple.getPrimaryKeyValue());
-                    }
-                    case "java.lang.Double" -> {
-                        BTree<Double, String> bTree1 = (BTree<Double, String>) indices.get(i);
-                        bTree1.delete((double) tuple.getValues().get(colName),pageToDeleteFrom + "-" + tuple.getPrimaryKeyValue());
-                    }
-                }
-            }
+        if(keyFilter != null){
+            keyFilter.remove(tuple.getPrimaryKeyValue());
+        }
+        for (int i = 0;i<bTrees.size();i++) {
+            String bTree = bTrees.get(i);
+            String colName = bTree.replace("Index","");
+            indexDelete(index(i), indexKey(colName, tuple::get), pageToDeleteFrom, tuple.getPrimaryKeyValue());
+        }
+        for (int i = 0; i < valueIndexColumns.size(); i++) {
+            valueIndex(i).delete(tuple.get(valueIndexColumns.get(i)), tuple.getPrimaryKeyValue());
+            modifiedIndices.add(valueIndex(i));
         }
     }
 
+    // Method to find the position (starting from 1) of the page that contains a clustering key,
+    // or the page it should be inserted in if it doesn't exist
     public int findPageForCertainValue(Object primaryKey){
         int low = 1;
-        int high = pageNames.size() - 1;
+        int high = pageIds.size();
 
         while (low <= high) {
             int mid = low + (high - low) / 2;
-
-            //int comparisonResult = comparePrimaryKey(primaryKey, tuple);
-            int minComparison = compareTwoValues(primaryKey, minMaxValues.get(mid-1)[0]);
-            int maxComparison = compareTwoValues(primaryKey, minMaxValues.get(mid-1)[1]);
-            if(minComparison>=0 && maxComparison<=0){
-                return mid;
-            }else if(maxComparison<0){
+            if(compareTwoValues(primaryKey, minMaxValues.get(mid-1)[0]) < 0){
                 high = mid - 1;
-            }else{
+            }else if(compareTwoValues(primaryKey, minMaxValues.get(mid-1)[1]) > 0){
                 low = mid + 1;
+            }else{
+                return mid;
             }
         }
-        // If not found, return the last page
-        return pageNames.size()==0?1:pageNames.size();
+        // The key falls between the pages low-1 and low, it goes at the end of the page before it if there is one
+        return Math.max(1, Math.min(low - 1, pageIds.size()));
     }
     private int compareTwoValues(Object primaryKey1, Object primaryKey2) {
         return switch (attributes.get(this.primaryKey)) {
@@ -569,373 +1096,594 @@ public class Table implements Serializable {
         };
     }
 
-    public void createIndex(String colName, String indexName) throws DBAppException {
-        if(indexNames.contains(indexName)){
-            throw new DBAppException("The index was already created on one of the columns");
-        }
+    /**
+     * Adds a Bloom filter on the column to the zone map of every page, = terms and equality deletes on the column
+     * then only read the pages that may hold the value. Every page is read once to fill its filter.
+     */
+    public void createBloomFilter(String colName, double falsePositiveRate) throws DBAppException {
         if(attributes.get(colName) == null){
             throw new DBAppException("Wrong column name");
         }
+        if(!(falsePositiveRate > 0 && falsePositiveRate < 1)){
+            throw new DBAppException("The false positive rate must be between 0 and 1");
+        }
+        bloomFilterRates.put(colName, falsePositiveRate);
+        for (int i = 0; i < pageIds.size(); i++) {
+            Page page = readPage(pageIds.get(i));
+            setPageBounds(i, page);
+        }
+    }
 
-        List<Page> pages = getPages(tableName);
-        BTree<?,String> index = null;
-        switch (attributes.get(colName)) {
-            case "java.lang.String" -> {
-                Vector<Pointer<String, String>> data = new Vector<>();
-                for (Page page: pages){
-                    for (Tuple tuple : page.getTuples()){
-                        data.add(new Pointer<>((String) tuple.getValues().get(colName), page.getSerial() + "-" + tuple.getPrimaryKeyValue()));
-                    }
-                }
-                data.sort((o1, o2) -> {
-                    String s1 = String.valueOf(o1.key());
-                    String s2 = String.valueOf(o2.key());
-                    return s1.compareTo(s2);
-                });
-                BTree<String, String> bTree = new BTree<String, String>(indexName, colName);
-                for (Pointer<String, String> datum : data) {
-                    bTree.insert(datum.key(), datum.value());
-                }
-                index = bTree;
-            }
-            case "java.lang.Integer" -> {
-                Vector<Pointer<Integer, String>> data = new Vector<>();
-                for (Page page: pages){
-                    for (Tuple tuple : page.getTuples()){
-                        data.add(new Pointer<>((Integer) tuple.getValues().get(colName), page.getSerial() + "-" + tuple.getPrimaryKeyValue()));
-                    }
-                }
-                data.sort((o1, o2) -> {
-                    Integer i1 = o1.key();
-                    Integer i2 = o2.key();
-                    return i1.compareTo(i2);
-                });
-                BTree<Integer, String> bTree = new BTree<Integer, String>(indexName, colName);
-                for (Pointer<Integer, String> datum : data) {
-                    bTree.insert(datum.key(), datum.value());
-                }
-                index = bTree;
-            }
-            case "java.lang.Double" -> {
-                Vector<Pointer<Double, String>> data = new Vector<>();
-                for (Page page: pages){
-                    for (Tuple tuple : page.getTuples()){
-                        data.add(new Pointer<>((Double) tuple.getValues().get(colName), page.getSerial() + "-" + tuple.getPrimaryKeyValue()));
-                    }
-                }
-                data.sort((o1, o2) -> {
-                    Double d1 = o1.key();
-                    Double d2 = o2.key();
-                    return d1.compareTo(d2);
-                });
-                BTree<Double, String> bTree = new BTree<Double, String>(indexName, colName);
-                for (Pointer<Double, String> datum : data) {
-                    bTree.insert(datum.key(), datum.value());
-                }
-                index = bTree;
+    public void createIndex(String colName, String indexName) throws DBAppException {
+        createIndex(colName, indexName, IndexType.BTREE);
+    }
+
+    public void createIndex(String colName, String indexName, IndexType indexType) throws DBAppException {
+        createIndex(new String[] { colName }, indexName, indexType);
+    }
+
+    // Method to create an index, a B+ tree may be on several columns and its keys then compare their values in order
+    public void createIndex(String[] colNames, String indexName, IndexType indexType) throws DBAppException {
+        if(getIndexNames().contains(indexName)){
+            throw new DBAppException("The index was already created on one of the columns");
+        }
+        for (String colName : colNames) {
+            if(attributes.get(colName) == null){
+                throw new DBAppException("Wrong column name");
             }
         }
+        if(colNames.length > 1 && (indexType != IndexType.BTREE || new HashSet<>(Arrays.asList(colNames)).size() < colNames.length)){
+            throw new DBAppException("Composite indices are B+ trees over distinct columns");
+        }
+        String colName = String.join(",", colNames);
+        if(indexType != IndexType.BTREE){
+            createValueIndex(colName, indexName, indexType);
+            return;
+        }
+
+        // Secondary indices point to clustering keys so moving tuples between pages doesn't touch them
+        boolean logicalPointers = DBApp.logicalIndexPointers == 1 && !colName.equals(primaryKey);
+        BTree<?,String> index = buildIndex(colName, indexName, logicalPointers);
         if(!bTrees.contains(colName+"Index")) {
             bTrees.add(colName+"Index");
             indexNames.add(indexName);
-            indices.add(index);
+            loadedIndices.add(index);
+            modifiedIndices.add(index);
         }
     }
 
-    /**
-     * Compares the value in a specified column of a tuple with a given value.
-     *
-     * @param tuple   The tuple containing the value to compare.
-     * @param colName The name of the column in the tuple.
-     * @param val     The value to compare against.
-     * @return A negative value if the value in the column in the tuple is less than the value given,
-     *         a positive value if the column in the tuple is greater than the value given,
-     *         and 0 if they are both the same.
-     */
-    private int compareValues(Tuple tuple,String colName,Object val){
+    // Method to create a bitmap or a hash index, filled with the entries of every tuple
+    private void createValueIndex(String colName, String indexName, IndexType indexType) throws DBAppException {
+        // Bitmaps are over the clustering keys themselves, so only tables with an Integer clustering key can have them
+        if(indexType == IndexType.BITMAP && !attributes.get(primaryKey).equals("java.lang.Integer")){
+            throw new DBAppException("Bitmap indices need an Integer clustering key");
+        }
+        if(findValueIndex(colName, indexType) >= 0){
+            throw new DBAppException("Index already exists");
+        }
+        ValueIndex index = indexType == IndexType.BITMAP ? new BitmapIndex(indexName, colName) : new HashIndex(indexName, colName);
+        for (Page page : getPages(tableName)) {
+            for (Tuple tuple : page.getTuples()) {
+                index.insert(tuple.get(colName), tuple.getPrimaryKeyValue());
+            }
+        }
+        valueIndexColumns.add(colName);
+        valueIndexNames.add(indexName);
+        valueIndexTypes.add(indexType);
+        loadedValueIndices.add(index);
+        modifiedIndices.add(index);
+    }
+
+    // Method to build an index over a column from the current pages of the table
+    private BTree<?,String> buildIndex(String colName, String indexName, boolean logicalPointers) {
+        // Entries are packed record ids if the clustering key fits in one
+        boolean recordIds = attributes.get(primaryKey).equals("java.lang.Integer");
+        // Paged indices keep their nodes next to the pages of the table
+        String nodeFile = DBApp.pagedIndexes == 1 ? "Pages/" + tableName + "/" + indexName + ".idx" : null;
+        if (colName.contains(",")) {
+            return loadIndex(new BTree<CompositeKey, String>(indexName, colName, logicalPointers, recordIds, nodeFile));
+        }
         return switch (attributes.get(colName)) {
-            case "java.lang.Integer" -> Integer.compare((int) tuple.getValues().get(colName), (int) val);
-            case "java.lang.String" -> (String.valueOf(tuple.getValues().get(colName)).compareTo((String) val));
-            case "java.lang.Double" -> Double.compare((double) tuple.getValues().get(colName), (double) val);
+            case "java.lang.String" -> loadIndex(new BTree<String, String>(indexName, colName, logicalPointers, recordIds, nodeFile));
+            case "java.lang.Integer" -> loadIndex(new BTree<Integer, String>(indexName, colName, logicalPointers, recordIds, nodeFile));
+            case "java.lang.Double" -> loadIndex(new BTree<Double, String>(indexName, colName, logicalPointers, recordIds, nodeFile));
             default -> throw new IllegalStateException("Unexpected value: " + attributes.get(colName));
         };
     }
 
-    public Iterator<Tuple> selectFromTable(SQLTerm[] arrSQLTerms, String[]  strarrOperators) {
-        List<SQLTerm> sqlTerms = new ArrayList<>(Arrays.asList(arrSQLTerms));
-        List<String> operations = new ArrayList<>(Arrays.asList(strarrOperators));
-        //Primary key value,Whole tuple
-        List<HashMap<Object,Tuple>> results = new ArrayList<>();
-        List<Page> pages = getPages(tableName);
-        if (sqlTerms.isEmpty()) {
-            Collection<Tuple> result = new ArrayList<>();
-            for (Page page : pages) {
-                result.addAll(page.getTuples());
-            }
-            return result.iterator();
-        }
-        for (SQLTerm sqlTerm : sqlTerms) {
-            //sqlterms : name, gpa, grade
-            //operations: or,and -> or ->
-            // name , gpa, grade -> or -> name and gpa -> and -> name and gpa and grade
-            // select * from Student where name = “John Noor” or gpa = 1.5 and grade > 'C'
-            results.add(computeSQLTerm(sqlTerm,pages));
-        }
-        while(!operations.isEmpty()){
-            int nextIndex = getNextArrayOperation(operations);
-            switch (operations.get(nextIndex).toUpperCase()){
-                case "AND" -> {
-                    HashMap<Object, Tuple> intersect = getIntersection(results.get(nextIndex), results.get(nextIndex + 1));
-                    operations.remove(nextIndex);
-                    results.remove(nextIndex);
-                    results.remove(nextIndex);
-                    results.add(nextIndex,intersect);
-                }
-                case "OR" -> {
-                    HashMap<Object, Tuple> union = getUnion(results.get(nextIndex), results.get(nextIndex + 1));
-                    operations.remove(nextIndex);
-                    results.remove(nextIndex);
-                    results.remove(nextIndex);
-                    results.add(nextIndex,union);
-                }
-                case "XOR" -> {
-                    HashMap<Object, Tuple> xor = getXOR(results.get(nextIndex), results.get(nextIndex + 1));
-                    operations.remove(nextIndex);
-                    results.remove(nextIndex);
-                    results.remove(nextIndex);
-                    results.add(nextIndex,xor);
+    // Method to bulk load an empty index with the entries of every tuple, sorted by key and then by page
+    private <TKey extends Comparable<TKey>> BTree<TKey,String> loadIndex(BTree<TKey,String> bTree) {
+        String colName = bTree.getColName();
+        List<Pointer<TKey, Long>> recordIds = new ArrayList<>();
+        List<Pointer<TKey, String>> pointers = new ArrayList<>();
+        for (Page page : getPages(tableName)) {
+            for (Tuple tuple : page.getTuples()) {
+                if (bTree.hasRecordIds()) {
+                    recordIds.add(new Pointer<>((TKey) indexKey(colName, tuple::get), recordIdOf(bTree, page.getSerial(), tuple.getPrimaryKeyValue())));
+                } else {
+                    pointers.add(new Pointer<>((TKey) indexKey(colName, tuple::get), pointerTo(bTree, page.getSerial(), tuple.getPrimaryKeyValue())));
                 }
             }
         }
-        Collection<Tuple> result = results.get(0).values();
-        return result.iterator();
+        // Both sorts are stable so entries with equal keys stay in page order
+        if (bTree.hasRecordIds()) {
+            recordIds.sort(Comparator.comparing(Pointer::key));
+            bTree.bulkLoadRecordIds(recordIds.iterator());
+        } else {
+            pointers.sort(Comparator.comparing(Pointer::key));
+            bTree.bulkLoad(pointers.iterator());
+        }
+        return bTree;
     }
 
-    public HashMap<Object,Tuple> getIntersection(HashMap<Object, Tuple> hashMap1,HashMap<Object,Tuple> hashMap2){
-        HashMap<Object, Tuple> result = new HashMap<>();
-        if(hashMap1.size()<hashMap2.size()){
-            for(Map.Entry<Object,Tuple> entry : hashMap1.entrySet()){
-                if(hashMap2.containsKey(entry.getKey())){
-                    result.put(entry.getKey(),entry.getValue());
-                }
-            }
-        }else {
-            for(Map.Entry<Object,Tuple> entry : hashMap2.entrySet()){
-                if(hashMap1.containsKey(entry.getKey())){
-                    result.put(entry.getKey(),entry.getValue());
-                }
-            }
-        }
-        return result;
+    public Iterator<Tuple> selectFromTable(SQLTerm[] arrSQLTerms, String[]  strarrOperators) {
+        return selectFromTable(arrSQLTerms, strarrOperators, null);
     }
 
-    public HashMap<Object,Tuple> getUnion(HashMap<Object, Tuple> hashMap1,HashMap<Object,Tuple> hashMap2){
-        HashMap<Object,Tuple> hashMap = new HashMap<>(hashMap1);
-        hashMap.putAll(hashMap2);
-        return hashMap;
+    // Selects only the given columns of the tuples, every column if columns is null
+    public Iterator<Tuple> selectFromTable(SQLTerm[] arrSQLTerms, String[]  strarrOperators, String[] columns) {
+        List<List<List<SQLTerm>>> condition = SelectIterator.groupTerms(arrSQLTerms, strarrOperators);
+        Schema output = columns == null ? null : projectSchema(columns);
+        Iterator<Tuple> indexOnlyScan = scanCoveringIndex(condition, output == null ? getSchema() : output);
+        if (indexOnlyScan != null) {
+            return indexOnlyScan;
+        }
+        return new SelectIterator(this, getPagesToScan(condition), condition, output);
     }
 
-    public HashMap<Object, Tuple> getXOR(HashMap<Object, Tuple> hashMap1,HashMap<Object,Tuple> hashMap2){
-        HashMap<Object, Tuple> xor = getUnion(hashMap1,hashMap2);
-        HashMap<Object, Tuple> intersection = getIntersection(hashMap1,hashMap2);
-        for(Object key : intersection.keySet()){
-            xor.remove(key);
+    // Method to get the schema of the tuples holding only some of the columns, in the given order
+    private Schema projectSchema(String[] columns) {
+        String[] types = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            types[i] = attributes.get(columns[i]);
         }
-        return xor;
+        return new Schema(columns, types, Arrays.asList(columns).indexOf(primaryKey));
     }
 
-    private int getNextArrayOperation(List<String> operations){
-        int orIndex = -1;
-        int xorIndex = -1;
-        for (int i = 0; i < operations.size(); i++) {
-            String operation = operations.get(i);
-            switch (operation) {
-                case "AND" -> {
-                    return i;
-                }
-                case "OR" -> orIndex = i;
-                case "XOR" -> xorIndex = i;
-            }
-        }
-        return orIndex != -1 ? orIndex : xorIndex;
-    }
-
-    public HashMap<Object,Tuple> computeSQLTerm(SQLTerm sqlTerm,List<Page> pages) {
-        HashMap<Object, Tuple> dataSet = new HashMap<>();
-        if(doesIndexExist(sqlTerm._strColumnName)){
-            //Index format: key:value in column , value: page number-primary key as a string
-            String type = attributes.get(primaryKey);
-            switch (attributes.get(sqlTerm._strColumnName)){
-                case "java.lang.String" -> {
-                    BTree<String,String> bTree = (BTree<String,String>) getBTree(sqlTerm._strColumnName);
-                    LinkedList<Pointer<String,String>> list = bTree.computeOperator(String.valueOf(sqlTerm._objValue),sqlTerm._strOperator);
-                    for(Pointer<String, String> pointer : list){
-                        int pageNum = Integer.parseInt(pointer.value().split("-")[0]);
-                        pageNum = pageNames.indexOf(tableName + pageNum + ".ser");
-                        Object primaryKey = getParsedPrimaryKey(type,pointer.value().split("-")[1]);
-                        Page page = pages.get(pageNum);
-                        Tuple tuple = page.getTuples().get(page.binarySearchString(primaryKey));
-                        dataSet.put(primaryKey,tuple);
-                    }
-                    return dataSet;
-                }
-                case "java.lang.Integer" -> {
-                    BTree<Integer,String> bTree = (BTree<Integer,String>) getBTree(sqlTerm._strColumnName);
-                    LinkedList<Pointer<Integer,String>> list = bTree.computeOperator((int) sqlTerm._objValue,sqlTerm._strOperator);
-                    for(Pointer<Integer, String> pointer : list){
-                        int pageNum = Integer.parseInt(pointer.value().split("-")[0]);
-                        pageNum = pageNames.indexOf(tableName + pageNum + ".ser");
-                        Object primaryKey = getParsedPrimaryKey(type,pointer.value().split("-")[1]);
-                        Page page = pages.get(pageNum);
-                        Tuple tuple = page.getTuples().get(page.binarySearchString(primaryKey));
-                        dataSet.put(primaryKey,tuple);
-                    }
-                    return dataSet;
-                }
-                case "java.lang.Double" -> {
-                    BTree<Double,String> bTree = (BTree<Double,String>) getBTree(sqlTerm._strColumnName);
-                    LinkedList<Pointer<Double,String>> list = bTree.computeOperator((double) sqlTerm._objValue,sqlTerm._strOperator);
-                    for(Pointer<Double, String> pointer : list){
-                        int pageNum = Integer.parseInt(pointer.value().split("-")[0]);
-                        pageNum = pageNames.indexOf(tableName + pageNum + ".ser");
-                        Object primaryKey = getParsedPrimaryKey(type,pointer.value().split("-")[1]);
-                        Page page = pages.get(pageNum);
-                        Tuple tuple = page.getTuples().get(page.binarySearchString(primaryKey));
-                        dataSet.put(primaryKey,tuple);
-                    }
-                    return dataSet;
+    /**
+     * Answers a select from a B+ tree index alone when the columns of the index and the clustering key
+     * cover every column of the condition and of the output, no page of the table is read then.
+     * An index whose keys are narrowed down by the condition is always used, an index that has to be walked whole
+     * only when the condition would otherwise scan every page. Returns null if the select has to read the pages.
+     */
+    private Iterator<Tuple> scanCoveringIndex(List<List<List<SQLTerm>>> condition, Schema output) {
+        Set<String> needed = new HashSet<>();
+        for (int i = 0; i < output.size(); i++) {
+            needed.add(output.getColumn(i));
+        }
+        for (List<List<SQLTerm>> orGroups : condition) {
+            for (List<SQLTerm> andGroup : orGroups) {
+                for (SQLTerm sqlTerm : andGroup) {
+                    needed.add(sqlTerm._strColumnName);
                 }
+            }
+        }
+        int fullScan = -1;
+        for (int i = 0; i < bTrees.size(); i++) {
+            Set<String> covered = new HashSet<>(Arrays.asList(bTrees.get(i).replace("Index", "").split(",")));
+            covered.add(primaryKey);
+            if (!covered.containsAll(needed)) {
+                continue;
+            }
+            IndexRange range = coveringRange(i, condition);
+            if (range == null) {
+                return Collections.emptyIterator();
+            }
+            if (range.lo() != null || range.hi() != null) {
+                return new IndexScanIterator(this, index(i), scanIndex(index(i), range), condition, output);
+            }
+            if (fullScan == -1) {
+                fullScan = i;
+            }
+        }
+        if (fullScan == -1 || getPagesToScan(condition).size() < pageIds.size()) {
+            return null;
+        }
+        IndexRange whole = new IndexRange(null, true, null, true);
+        return new IndexScanIterator(this, index(fullScan), scanIndex(index(fullScan), whole), condition, output);
+    }
 
+    // Method to get the range of keys of the index at a position that may satisfy the condition, null if none can
+    private IndexRange coveringRange(int position, List<List<List<SQLTerm>>> condition) {
+        IndexRange whole = new IndexRange(null, true, null, true);
+        // Only a single group of ANDed terms narrows down the keys to a single range
+        if (condition.size() != 1 || condition.get(0).size() != 1) {
+            return whole;
+        }
+        List<SQLTerm> andGroup = condition.get(0).get(0);
+        String colName = bTrees.get(position).replace("Index", "");
+        if (colName.contains(",")) {
+            CompositeRange range = compositeRangeOf(position, andGroup);
+            if (range == null) {
+                return whole;
             }
-        }else{
-            if(Objects.equals(sqlTerm._strColumnName, primaryKey)) {
-                return linearSearchForPrimaryKey(sqlTerm._strOperator, sqlTerm._objValue,pages);
+            return range.isEmpty() ? null : new IndexRange(range.lo(), true, range.hi(), true);
+        }
+        List<SQLTerm> terms = new ArrayList<>();
+        for (SQLTerm sqlTerm : andGroup) {
+            if (sqlTerm._strColumnName.equals(colName) && !sqlTerm._strOperator.equals("!=")) {
+                terms.add(sqlTerm);
             }
-            return linearSearch(sqlTerm._strColumnName,sqlTerm._strOperator,sqlTerm._objValue,pages);
         }
-        return null;
+        IndexRange range = toIndexRange(terms);
+        return range.isEmpty() ? null : range;
     }
 
-    public Object getParsedPrimaryKey(String type,Object val){
-        return switch (type){
-            case "java.lang.String" -> String.valueOf(val);
-            case "java.lang.Integer" -> Integer.parseInt((String) val);
-            case "java.lang.Double" -> Double.parseDouble((String) val);
-            default -> null;
-        };
+    private <TKey extends Comparable<TKey>> BTreeCursor<TKey,String> scanIndex(BTree<?,String> index, IndexRange range) {
+        return ((BTree<TKey,String>) index).range((TKey) range.lo(), range.loInclusive(), (TKey) range.hi(), range.hiInclusive());
     }
 
-    private HashMap<Object,Tuple> linearSearch(String colName,String operator,Object value,List<Page> pages){
-        HashMap<Object, Tuple> tupleMap = new HashMap<>();
-        for (Page page : pages) {
-            for (Tuple tuple : page.getTuples()) {
-                switch (operator) {
-                    case ">" -> {
-                        if (compareValues(tuple, colName, value) > 0) {
-                            tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                        }
+    // Method to get the clustering keys of the tuples with the key the cursor is at
+    List<Object> primaryKeysAt(BTree<?,String> index, BTreeCursor<?,String> cursor) {
+        List<Object> primaryKeyVals = new ArrayList<>();
+        if (index.hasRecordIds()) {
+            cursor.forEachRecordId(recordId -> primaryKeyVals.add(RecordId.primaryKey(recordId)));
+        } else {
+            for (String value : cursor.values()) {
+                primaryKeyVals.add(pointerPrimaryKey(index, value));
+            }
+        }
+        return primaryKeyVals;
+    }
+
+    /**
+     * Finds the pages that may contain tuples satisfying the condition, in clustering key order.
+     * A condition only made of terms answered by bitmap indices is evaluated exactly with bitwise operations,
+     * otherwise ANDed terms narrow down the pages while ORed and XORed groups add to them,
+     * terms on other columns only keep the pages whose zone maps may hold a matching value.
+     */
+    private List<Integer> getPagesToScan(List<List<List<SQLTerm>>> condition) {
+        Bitmap keys = evaluateBitmaps(condition);
+        Set<Integer> candidates = keys != null ? getPagesOf(keys) : findCandidatePages(condition);
+        List<Integer> serials = new ArrayList<>();
+        for (int pageId : pageIds) {
+            if (candidates == null || candidates.contains(pageId)) {
+                serials.add(pageId);
+            }
+        }
+        return serials;
+    }
+
+    // Method to get the pages that may hold tuples satisfying the condition, null if every page has to be checked
+    private Set<Integer> findCandidatePages(List<List<List<SQLTerm>>> condition) {
+        Set<Integer> candidates = condition.isEmpty() ? null : new HashSet<>();
+        for (List<List<SQLTerm>> orGroups : condition) {
+            for (List<SQLTerm> andGroup : orGroups) {
+                Set<Integer> groupPages = null;
+                // ANDed range terms on an indexed column are answered together by one walk over the index
+                LinkedHashMap<String, List<SQLTerm>> indexedTerms = new LinkedHashMap<>();
+                // ANDed terms on bitmap indices are answered together by intersecting their bitmaps
+                List<SQLTerm> bitmapTerms = new ArrayList<>();
+                // Equal values on the first columns of a composite index and a range on the next one are answered by one walk
+                CompositeRange compositeRange = findCompositeRange(andGroup);
+                List<Set<Integer>> termsPages = new ArrayList<>();
+                for (SQLTerm sqlTerm : andGroup) {
+                    if (compositeRange != null && compositeRange.columns().contains(sqlTerm._strColumnName)) {
+                        continue;
                     }
-                    case ">=" -> {
-                        if (compareValues(tuple, colName, value) >= 0) {
-                            tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                        }
+                    if (hasBitmapFor(sqlTerm)) {
+                        bitmapTerms.add(sqlTerm);
+                    } else if (hasHashFor(sqlTerm)) {
+                        termsPages.add(computeSQLTerm(sqlTerm));
+                    } else if (doesIndexExist(sqlTerm._strColumnName) && !sqlTerm._strOperator.equals("!=")) {
+                        indexedTerms.computeIfAbsent(sqlTerm._strColumnName, colName -> new ArrayList<>()).add(sqlTerm);
+                    } else {
+                        termsPages.add(computeSQLTerm(sqlTerm));
                     }
-                    case "<" -> {
-                        if (compareValues(tuple, colName, value) < 0) {
-                            tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                        }
+                }
+                if (indexedTerms.size() > 1 && hasRecordIdIndices(indexedTerms.keySet())) {
+                    // The clustering keys matching every indexed column are intersected before they are turned into pages,
+                    // so a page only holding tuples that satisfy one of the columns is skipped
+                    PostingList keys = null;
+                    for (Map.Entry<String, List<SQLTerm>> entry : indexedTerms.entrySet()) {
+                        PostingList columnKeys = computeIndexKeys(entry.getKey(), entry.getValue());
+                        keys = keys == null ? columnKeys : keys.and(columnKeys);
                     }
-                    case "<=" -> {
-                        if (compareValues(tuple, colName, value) <= 0) {
-                            tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                        }
+                    termsPages.add(getPagesOf(keys));
+                } else {
+                    for (Map.Entry<String, List<SQLTerm>> entry : indexedTerms.entrySet()) {
+                        termsPages.add(computeIndexRange(entry.getKey(), entry.getValue()));
                     }
-                    case "!=" -> {
-                        if (compareValues(tuple, colName, value) != 0) {
-                            tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                        }
+                }
+                if (!bitmapTerms.isEmpty()) {
+                    termsPages.add(getPagesOf(andBitmaps(bitmapTerms)));
+                }
+                if (compositeRange != null) {
+                    termsPages.add(computeCompositeRange(compositeRange));
+                }
+                for (Set<Integer> termPages : termsPages) {
+                    if (termPages == null) {
+                        continue;
                     }
-                    case "=" -> {
-                        if (compareValues(tuple, colName, value) == 0) {
-                            tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                        }
+                    if (groupPages == null) {
+                        groupPages = termPages;
+                    } else {
+                        groupPages.retainAll(termPages);
                     }
                 }
+                if (groupPages == null) {
+                    candidates = null;
+                    break;
+                }
+                candidates.addAll(groupPages);
+            }
+            if (candidates == null) {
+                break;
             }
         }
-        return tupleMap;
+        return candidates;
     }
 
-    private HashMap<Object,Tuple> linearSearchForPrimaryKey(String operator,Object value,List<Page> pages){
-        HashMap<Object, Tuple> tupleMap = new HashMap<>();
-        if(operator.equals("!=")){
-            for (Page page : pages) {
-                for (Tuple tuple : page.getTuples()) {
-                    if (!tuple.getPrimaryKeyValue().equals(value)) {
-                        tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
+    // Method to evaluate XORs of ORs of ANDs bitwise into the clustering keys satisfying the condition,
+    // null if one of the terms can't be answered by a bitmap index
+    private Bitmap evaluateBitmaps(List<List<List<SQLTerm>>> condition) {
+        if (condition.isEmpty()) {
+            return null;
+        }
+        for (List<List<SQLTerm>> orGroups : condition) {
+            for (List<SQLTerm> andGroup : orGroups) {
+                for (SQLTerm sqlTerm : andGroup) {
+                    if (!hasBitmapFor(sqlTerm)) {
+                        return null;
                     }
                 }
             }
-            return tupleMap;
         }
-        int index = findPageForCertainValue(value);
-        if (operator.equals("=")) {
-            Page page = pages.get(index-1);
-            if (page == null) {
-                return tupleMap;
+        Bitmap result = new Bitmap();
+        for (List<List<SQLTerm>> orGroups : condition) {
+            Bitmap orResult = new Bitmap();
+            for (List<SQLTerm> andGroup : orGroups) {
+                orResult = orResult.or(andBitmaps(andGroup));
             }
-            tupleMap.put(value, page.getTuples().get(page.binarySearchString(value)));
-            return tupleMap;
+            result = result.xor(orResult);
         }
-        if (operator.equals("<")) {
-            for (int i = 0; i < index; i++) {
-                Page page = pages.get(i);
-                assert page != null;
-                for (Tuple tuple : page.getTuples()) {
-                    if (compareValues(tuple, primaryKey, value) < 0) {
-                        tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                    }else {
-                        return tupleMap;
-                    }
-                }
+        return result;
+    }
+
+    // Method to intersect the clustering keys satisfying each of the ANDed terms on bitmap indices
+    private Bitmap andBitmaps(List<SQLTerm> sqlTerms) {
+        Bitmap keys = null;
+        for (SQLTerm sqlTerm : sqlTerms) {
+            Bitmap termKeys = getBitmapIndex(sqlTerm._strColumnName).lookup(sqlTerm._strOperator, sqlTerm._objValue);
+            keys = keys == null ? termKeys : keys.and(termKeys);
+            if (keys.isEmpty()) {
+                break;
             }
         }
-        if (operator.equals("<=")) {
-            for (int i = 0; i < index; i++) {
-                Page page = pages.get(i);
-                assert page != null;
-                for (Tuple tuple : page.getTuples()) {
-                    if (compareValues(tuple, primaryKey, value) <= 0) {
-                        tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                    }else {
-                        return tupleMap;
-                    }
+        return keys;
+    }
+
+    /**
+     * Computes the serials of the pages that may hold tuples satisfying the SQLTerm,
+     * using the index on the column, the min/max values of the clustering key or the zone maps of the pages.
+     */
+    public Set<Integer> computeSQLTerm(SQLTerm sqlTerm) {
+        if (sqlTerm._strOperator.equals("!=")) {
+            return findZonePages(sqlTerm);
+        }
+        if (hasHashFor(sqlTerm)) {
+            // Every clustering key holding the value is in a single bucket of the hash index
+            Set<Integer> serials = new HashSet<>();
+            for (Object primaryKeyVal : getHashIndex(sqlTerm._strColumnName).lookup(sqlTerm._objValue)) {
+                serials.add(pageIds.get(findPageForCertainValue(primaryKeyVal) - 1));
+            }
+            return serials;
+        }
+        if (doesIndexExist(sqlTerm._strColumnName)) {
+            return computeIndexRange(sqlTerm._strColumnName, List.of(sqlTerm));
+        }
+        Set<Integer> serials = new HashSet<>();
+        if (Objects.equals(sqlTerm._strColumnName, primaryKey)) {
+            for (int i = 0; i < pageIds.size(); i++) {
+                int minComparison = compareTwoValues(minMaxValues.get(i)[0], sqlTerm._objValue);
+                int maxComparison = compareTwoValues(minMaxValues.get(i)[1], sqlTerm._objValue);
+                boolean mayContain = switch (sqlTerm._strOperator) {
+                    case "=" -> minComparison <= 0 && maxComparison >= 0;
+                    case "<" -> minComparison < 0;
+                    case "<=" -> minComparison <= 0;
+                    case ">" -> maxComparison > 0;
+                    case ">=" -> maxComparison >= 0;
+                    default -> true;
+                };
+                if (mayContain) {
+                    serials.add(pageIds.get(i));
                 }
             }
+            return serials;
         }
-        if (operator.equals(">")) {
-            for (int i = index-1; i < pageNames.size(); i++) {
-                Page page = pages.get(i);
-                assert page != null;
-                for (Tuple tuple : page.getTuples()) {
-                    if (compareValues(tuple, primaryKey, value) > 0) {
-                        tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                    }
+        return findZonePages(sqlTerm);
+    }
+
+    // Method to get the pages whose zone maps may hold a tuple satisfying the term, pages without a zone map are kept
+    private Set<Integer> findZonePages(SQLTerm sqlTerm) {
+        int ordinal = getSchema().ordinalOf(sqlTerm._strColumnName);
+        Set<Integer> serials = new HashSet<>();
+        for (int i = 0; i < pageIds.size(); i++) {
+            ZoneMap zoneMap = zoneMaps.get(i);
+            if (zoneMap == null || zoneMap.mayContain(ordinal, sqlTerm._strOperator, sqlTerm._objValue)) {
+                serials.add(pageIds.get(i));
+            }
+        }
+        return serials;
+    }
+
+    // Single range of an index holding the keys that satisfy ANDed terms on its column, null bounds are open
+    private record IndexRange(Object lo, boolean loInclusive, Object hi, boolean hiInclusive) {
+        // Terms contradicting each other leave an empty range
+        boolean isEmpty() {
+            return lo != null && hi != null && ((Comparable<Object>) lo).compareTo(hi) > 0;
+        }
+
+        // The terms fix the value of the column
+        boolean isPoint() {
+            return lo != null && hi != null && loInclusive && hiInclusive && ((Comparable<Object>) lo).compareTo(hi) == 0;
+        }
+    }
+
+    /**
+     * Narrows down the ANDed terms on an indexed column to a single range of the index (an empty one if they
+     * contradict each other) so the index is walked once from the lower bound up to the upper bound.
+     */
+    private static <TKey extends Comparable<TKey>> IndexRange toIndexRange(List<SQLTerm> sqlTerms) {
+        TKey lo = null;
+        TKey hi = null;
+        boolean loInclusive = true;
+        boolean hiInclusive = true;
+        for (SQLTerm sqlTerm : sqlTerms) {
+            TKey value = (TKey) sqlTerm._objValue;
+            String operator = sqlTerm._strOperator;
+            if (operator.equals("=") || operator.equals(">") || operator.equals(">=")) {
+                int cmp = lo == null ? -1 : lo.compareTo(value);
+                if (cmp < 0 || (cmp == 0 && operator.equals(">"))) {
+                    lo = value;
+                    loInclusive = !operator.equals(">");
+                }
+            }
+            if (operator.equals("=") || operator.equals("<") || operator.equals("<=")) {
+                int cmp = hi == null ? 1 : hi.compareTo(value);
+                if (cmp > 0 || (cmp == 0 && operator.equals("<"))) {
+                    hi = value;
+                    hiInclusive = !operator.equals("<");
                 }
             }
         }
-        if (operator.equals(">=")) {
-            for (int i = index-1; i < pageNames.size(); i++) {
-                Page page = pages.get(i);
-                assert page != null;
-                for (Tuple tuple : page.getTuples()) {
-                    if (compareValues(tuple, primaryKey, value) >= 0) {
-                        tupleMap.put(tuple.getPrimaryKeyValue(), tuple);
-                    }
+        return new IndexRange(lo, loInclusive, hi, hiInclusive);
+    }
+
+    // Computes the serials of the pages holding tuples that satisfy all the ANDed terms on an indexed column
+    private Set<Integer> computeIndexRange(String colName, List<SQLTerm> sqlTerms) {
+        Set<Integer> serials = new HashSet<>();
+        IndexRange range = toIndexRange(sqlTerms);
+        if (range.isEmpty()) {
+            return serials;
+        }
+        //Index format: key:value in column , value: record id, or page number-primary key (or only the primary key) as a string
+        forEachIndexEntry(getBTree(colName), range.lo(), range.loInclusive(), range.hi(), range.hiInclusive(), (primaryKeyVal, serial) -> serials.add(serial));
+        return serials;
+    }
+
+    // Keys of the composite index at a position satisfying ANDed terms on its first columns, lo and hi are prefix bounds
+    private record CompositeRange(int position, List<String> columns, CompositeKey lo, CompositeKey hi, boolean isEmpty) {
+    }
+
+    /**
+     * Finds the composite index whose first columns are best narrowed down by the ANDed terms: the terms fix the values
+     * of its leading columns and may bound the next one, so the matching keys share a prefix and are next to each other.
+     * Returns null if no composite index starts with a column that has terms.
+     */
+    private CompositeRange findCompositeRange(List<SQLTerm> andGroup) {
+        CompositeRange best = null;
+        for (int i = 0; i < bTrees.size(); i++) {
+            if (!bTrees.get(i).contains(",")) {
+                continue;
+            }
+            CompositeRange range = compositeRangeOf(i, andGroup);
+            // On a single column, the index of that column is just as good
+            if (range == null || (range.columns().size() == 1 && doesIndexExist(range.columns().get(0)))
+                    || (best != null && best.columns().size() >= range.columns().size())) {
+                continue;
+            }
+            best = range;
+        }
+        return best;
+    }
+
+    // Method to narrow down the composite index at a position with ANDed terms, null if its first column has no terms
+    private CompositeRange compositeRangeOf(int position, List<SQLTerm> andGroup) {
+        List<String> columns = new ArrayList<>();
+        List<Object> prefix = new ArrayList<>();
+        IndexRange range = null;
+        for (String column : bTrees.get(position).replace("Index", "").split(",")) {
+            List<SQLTerm> terms = new ArrayList<>();
+            for (SQLTerm sqlTerm : andGroup) {
+                if (sqlTerm._strColumnName.equals(column) && !sqlTerm._strOperator.equals("!=")) {
+                    terms.add(sqlTerm);
                 }
             }
+            if (terms.isEmpty()) {
+                break;
+            }
+            columns.add(column);
+            IndexRange columnRange = toIndexRange(terms);
+            if (!columnRange.isPoint()) {
+                range = columnRange;
+                break;
+            }
+            prefix.add(columnRange.lo());
+        }
+        if (columns.isEmpty()) {
+            return null;
+        }
+        Object[] values = prefix.toArray();
+        CompositeKey lo = CompositeKey.lowerBound(values);
+        CompositeKey hi = CompositeKey.upperBound(values);
+        if (range != null && range.lo() != null) {
+            Object[] bound = append(values, range.lo());
+            lo = range.loInclusive() ? CompositeKey.lowerBound(bound) : CompositeKey.upperBound(bound);
+        }
+        if (range != null && range.hi() != null) {
+            Object[] bound = append(values, range.hi());
+            hi = range.hiInclusive() ? CompositeKey.upperBound(bound) : CompositeKey.lowerBound(bound);
+        }
+        return new CompositeRange(position, columns, lo, hi, range != null && range.isEmpty());
+    }
+
+    private static Object[] append(Object[] values, Object value) {
+        Object[] appended = Arrays.copyOf(values, values.length + 1);
+        appended[values.length] = value;
+        return appended;
+    }
+
+    // Computes the serials of the pages holding the keys of a composite index between the bounds of the range
+    private Set<Integer> computeCompositeRange(CompositeRange range) {
+        Set<Integer> serials = new HashSet<>();
+        if (!range.isEmpty()) {
+            // The bounds are never equal to a stored key so inclusiveness doesn't matter
+            forEachIndexEntry(index(range.position()), range.lo(), true, range.hi(), true, (primaryKeyVal, serial) -> serials.add(serial));
+        }
+        return serials;
+    }
+
+    // Computes the clustering keys of the tuples that satisfy all the ANDed terms on an index storing record ids
+    private <TKey extends Comparable<TKey>> PostingList computeIndexKeys(String colName, List<SQLTerm> sqlTerms) {
+        IndexRange range = toIndexRange(sqlTerms);
+        if (range.isEmpty()) {
+            return new PostingList();
+        }
+        BTree<TKey,String> bTree = (BTree<TKey,String>) getBTree(colName);
+        return bTree.clusteringKeys((TKey) range.lo(), range.loInclusive(), (TKey) range.hi(), range.hiInclusive());
+    }
+
+    private boolean hasRecordIdIndices(Collection<String> colNames) {
+        for (String colName : colNames) {
+            if (!getBTree(colName).hasRecordIds()) {
+                return false;
+            }
         }
-        return tupleMap;
+        return true;
+    }
+
+    // Method to get the serials of the pages holding clustering keys given as record ids
+    private Set<Integer> getPagesOf(PostingList keys) {
+        Set<Integer> serials = new HashSet<>();
+        keys.forEach(key -> serials.add(pageIds.get(findPageForCertainValue(RecordId.primaryKey(key)) - 1)));
+        return serials;
+    }
+
+    // Method to get the serials of the pages holding the clustering keys of a bitmap
+    private Set<Integer> getPagesOf(Bitmap keys) {
+        Set<Integer> serials = new HashSet<>();
+        keys.forEach(key -> serials.add(pageIds.get(findPageForCertainValue(key) - 1)));
+        return serials;
+    }
+
+    public Object getParsedPrimaryKey(String type,Object val){
+        return switch (type){
+            case "java.lang.String" -> String.valueOf(val);
+            case "java.lang.Integer" -> Integer.parseInt((String) val);
+            case "java.lang.Double" -> Double.parseDouble((String) val);
+            default -> null;
+        };
     }
 
     public void printTable() {
@@ -994,6 +1742,7 @@ public class Table implements Serializable {
             e.printStackTrace();
         }
 
+        dbApp.checkpoint();
         Table table = Serializer.deserializeTable("Student");
         assert table != null;
         table.printTable();
@@ -1046,6 +1795,7 @@ public class Table implements Serializable {
             e.printStackTrace();
         }
 
+        dbApp.checkpoint();
         table = Serializer.deserializeTable("Student");
         assert table != null;
         table.printTable();
@@ -1,33 +1,103 @@
 package Main;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.LinkedHashMap;
 
 public class Tuple implements Serializable {
-    private final LinkedHashMap<String,Object> values;
+    // Same as before the class evolved, so pages written with Java serialization can still be read
+    private static final long serialVersionUID = -7213685583593075938L;
 
-    //Name of the column
-    private final String primaryKey;
+    // Shared by all the tuples of a table, maps column names to positions in the row
+    private Schema schema;
+    // Values ordered like the columns of the schema
+    private Object[] row;
+
+    // Only set in tuples written before rows were stored by ordinal, converted to a row on load
+    private LinkedHashMap<String,Object> values;
+    private String primaryKey;
+
+    public Tuple(Object[] row, Schema schema){
+        this.row = row;
+        this.schema = schema;
+    }
 
     public Tuple(LinkedHashMap<String,Object> values, String primaryKey){
-        this.values = values;
-        this.primaryKey = primaryKey;
+        String[] columns = values.keySet().toArray(new String[0]);
+        String[] types = new String[columns.length];
+        int primaryKeyOrdinal = -1;
+        for (int i = 0; i < columns.length; i++) {
+            Object value = values.get(columns[i]);
+            types[i] = value == null ? null : value.getClass().getName();
+            if (columns[i].equals(primaryKey)) {
+                primaryKeyOrdinal = i;
+            }
+        }
+        this.schema = new Schema(columns, types, primaryKeyOrdinal);
+        this.row = values.values().toArray();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (row == null) {
+            Tuple tuple = new Tuple(values, primaryKey);
+            schema = tuple.schema;
+            row = tuple.row;
+            values = null;
+            primaryKey = null;
+        }
     }
 
+    // Copy of the row keyed by column name, kept for code written against the map based tuple
+    // Changing the map doesn't change the tuple, use set for that
     public LinkedHashMap<String,Object> getValues(){
+        LinkedHashMap<String,Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < row.length; i++) {
+            values.put(schema.getColumn(i), row[i]);
+        }
         return values;
     }
 
+    public Object get(int ordinal){
+        return row[ordinal];
+    }
+
+    public Object get(String column){
+        int ordinal = schema.ordinalOf(column);
+        return ordinal == -1 ? null : row[ordinal];
+    }
+
+    public void set(int ordinal, Object value){
+        row[ordinal] = value;
+    }
+
+    // Method to get a tuple with only the columns of the schema, in its order
+    public Tuple project(Schema projection){
+        Object[] projected = new Object[projection.size()];
+        for (int i = 0; i < projected.length; i++) {
+            projected[i] = get(projection.getColumn(i));
+        }
+        return new Tuple(projected, projection);
+    }
+
+    public Schema getSchema(){
+        return schema;
+    }
+
     public String toString() {
         StringBuilder result = new StringBuilder();
-        for (String key : values.keySet()) {
-            result.append(values.get(key)).append(",");
+        for (Object value : row) {
+            result.append(value).append(",");
         }
         result.deleteCharAt(result.length()-1);
         return result.toString();
     }
 
     public Object getPrimaryKeyValue(){
-        return values.getOrDefault(this.primaryKey,null);
+        int primaryKeyOrdinal = schema.getPrimaryKeyOrdinal();
+        return primaryKeyOrdinal == -1 ? null : row[primaryKeyOrdinal];
     }
 }
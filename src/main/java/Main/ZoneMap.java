@@ -0,0 +1,103 @@
+package Main;
+
+import Index.BloomFilter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The smallest and largest value and the number of nulls of every column of a page, in the order of the table's schema.
+ * Kept by the table next to the serial of the page, so a scan skips the pages that can't hold a tuple satisfying a term
+ * without reading them. Columns with a Bloom filter also have one per page, so = terms skip the pages
+ * whose range holds the value but whose tuples don't.
+ */
+public class ZoneMap implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] min;
+    private final Object[] max;
+    private final int[] nullCounts;
+    private final int size;
+    // Null for the columns without a Bloom filter, and in zone maps written before Bloom filters existed
+    private final BloomFilter[] bloomFilters;
+
+    private ZoneMap(Object[] min, Object[] max, int[] nullCounts, int size, BloomFilter[] bloomFilters) {
+        this.min = min;
+        this.max = max;
+        this.nullCounts = nullCounts;
+        this.size = size;
+        this.bloomFilters = bloomFilters;
+    }
+
+    // Method to summarize the tuples of a page, bloomFilterRates has the false positive rate of every column with a Bloom filter
+    public static ZoneMap of(List<Tuple> tuples, Schema schema, Map<String, Double> bloomFilterRates) {
+        Object[] min = new Object[schema.size()];
+        Object[] max = new Object[schema.size()];
+        int[] nullCounts = new int[schema.size()];
+        BloomFilter[] bloomFilters = new BloomFilter[schema.size()];
+        for (Map.Entry<String, Double> entry : bloomFilterRates.entrySet()) {
+            // Sized for a full page, so the rate holds however many tuples the page gets
+            bloomFilters[schema.ordinalOf(entry.getKey())] = new BloomFilter(Math.max(tuples.size(), DBApp.pageSize), entry.getValue());
+        }
+        for (Tuple tuple : tuples) {
+            for (int i = 0; i < schema.size(); i++) {
+                Object value = tuple.get(schema.getColumn(i));
+                if (value == null) {
+                    nullCounts[i]++;
+                    continue;
+                }
+                if (bloomFilters[i] != null) {
+                    bloomFilters[i].add(value);
+                }
+                if (min[i] == null || compare(value, min[i]) < 0) {
+                    min[i] = value;
+                }
+                if (max[i] == null || compare(value, max[i]) > 0) {
+                    max[i] = value;
+                }
+            }
+        }
+        return new ZoneMap(min, max, nullCounts, tuples.size(), bloomFilters);
+    }
+
+    public Object getMin(int ordinal) {
+        return min[ordinal];
+    }
+
+    public Object getMax(int ordinal) {
+        return max[ordinal];
+    }
+
+    public int getNullCount(int ordinal) {
+        return nullCounts[ordinal];
+    }
+
+    // Method to check whether a tuple of the page may satisfy "column operator value", nulls never satisfy a term
+    public boolean mayContain(int ordinal, String operator, Object value) {
+        if (nullCounts[ordinal] == size) {
+            return false;
+        }
+        int minComparison = compare(min[ordinal], value);
+        int maxComparison = compare(max[ordinal], value);
+        return switch (operator) {
+            case "=" -> minComparison <= 0 && maxComparison >= 0
+                    && (bloomFilters == null || bloomFilters[ordinal] == null || bloomFilters[ordinal].mightContain(value));
+            case "<" -> minComparison < 0;
+            case "<=" -> minComparison <= 0;
+            case ">" -> maxComparison > 0;
+            case ">=" -> maxComparison >= 0;
+            // Only a page whose values all equal the value has none different from it
+            case "!=" -> minComparison != 0 || maxComparison != 0;
+            default -> true;
+        };
+    }
+
+    // The values of a column all have the type of the column, so they compare with each other
+    @SuppressWarnings("unchecked")
+    private static int compare(Object value1, Object value2) {
+        return ((Comparable<Object>) value1).compareTo(value2);
+    }
+}
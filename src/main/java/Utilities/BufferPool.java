@@ -0,0 +1,132 @@
+package Utilities;
+
+import Main.Page;
+import Main.Table;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of pages keyed by (table name, page serial).
+ * Pages handed out by {@link #fetch} are pinned and can't be evicted until they are released,
+ * modified pages are only written to disk when they are evicted or flushed.
+ * Eviction picks the least recently used unpinned page.
+ */
+public class BufferPool {
+    private final int capacity;
+    // Access ordered so the eldest entry is always the least recently used one
+    private final LinkedHashMap<PageId, Frame> frames;
+
+    private record PageId(String tableName, int serial) {}
+
+    private static class Frame {
+        // Needed to write the page back in the format of its table
+        private final Table table;
+        private Page page;
+        private int pinCount;
+        private boolean dirty;
+
+        private Frame(Table table, Page page) {
+            this.table = table;
+            this.page = page;
+        }
+    }
+
+    public BufferPool(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.frames = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // Method to get a page and pin it, the page is read from disk if it isn't cached
+    public synchronized Page fetch(Table table, int serial) {
+        PageId id = new PageId(table.getTableName(), serial);
+        Frame frame = frames.get(id);
+        if (frame == null) {
+            Page page = Serializer.deserializePage(table.getTableName(), serial);
+            if (page == null) {
+                return null;
+            }
+            frame = new Frame(table, page);
+            evictIfNeeded();
+            frames.put(id, frame);
+        }
+        frame.pinCount++;
+        return frame.page;
+    }
+
+    // Method to get a cached page without pinning it, returns null if it isn't cached
+    public synchronized Page peek(String tableName, int serial) {
+        Frame frame = frames.get(new PageId(tableName, serial));
+        return frame == null ? null : frame.page;
+    }
+
+    // Method to unpin a page, a dirty page that isn't cached yet (a new page) is added to the pool
+    public synchronized void release(Table table, Page page, boolean dirty) {
+        PageId id = new PageId(table.getTableName(), page.getSerial());
+        Frame frame = frames.get(id);
+        if (frame == null) {
+            if (!dirty) {
+                return;
+            }
+            frame = new Frame(table, page);
+            evictIfNeeded();
+            frames.put(id, frame);
+        }
+        frame.page = page;
+        frame.dirty |= dirty;
+        if (frame.pinCount > 0) {
+            frame.pinCount--;
+        }
+    }
+
+    // Method to drop a page from the pool without writing it, used when its file is deleted
+    public synchronized void discard(String tableName, int serial) {
+        frames.remove(new PageId(tableName, serial));
+    }
+
+    // Method to drop every page of a table without writing them
+    public synchronized void discardTable(String tableName) {
+        frames.keySet().removeIf(id -> id.tableName().equals(tableName));
+    }
+
+    // Method to write all the dirty pages of a table to disk
+    public synchronized void flush(String tableName) {
+        for (Map.Entry<PageId, Frame> entry : frames.entrySet()) {
+            if (entry.getKey().tableName().equals(tableName)) {
+                writeBack(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Method to write all the dirty pages in the pool to disk
+    public synchronized void flushAll() {
+        for (Map.Entry<PageId, Frame> entry : frames.entrySet()) {
+            writeBack(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    private void writeBack(PageId id, Frame frame) {
+        if (frame.dirty) {
+            Serializer.serializePage(frame.page, frame.table);
+            frame.dirty = false;
+        }
+    }
+
+    // If the pool is full, evict the least recently used unpinned page
+    // If every page is pinned, the pool is allowed to grow past its capacity
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<PageId, Frame>> iterator = frames.entrySet().iterator();
+        while (frames.size() >= capacity && iterator.hasNext()) {
+            Map.Entry<PageId, Frame> entry = iterator.next();
+            if (entry.getValue().pinCount == 0) {
+                writeBack(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package Utilities;
+
+/**
+ * The kinds of index that can be created on a column, each one is recorded in the Index Type column of metadata.csv.
+ * BTREE indices answer ranges, BITMAP indices keep one compressed bitmap per distinct value of a low-cardinality column
+ * and HASH indices answer equality in constant time.
+ */
+public enum IndexType {
+    BTREE("B+Tree"),
+    BITMAP("Bitmap"),
+    HASH("Hash");
+
+    private final String metadataName;
+
+    IndexType(String metadataName) {
+        this.metadataName = metadataName;
+    }
+
+    public String getMetadataName() {
+        return metadataName;
+    }
+
+    // Method to get the type named in a CREATE INDEX ... USING clause or in metadata.csv, null if there's no such type
+    public static IndexType of(String name) {
+        for (IndexType type : values()) {
+            if (type.name().equalsIgnoreCase(name) || type.metadataName.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,178 @@
+package Utilities;
+
+import Main.Page;
+import Main.Schema;
+import Main.Tuple;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * Schema aware binary encoding of a page, column names and types are written once per page instead of once per row.
+ * Layout:
+ *  header:         magic, version, page serial, column count, (name, type) of every column, primary key ordinal
+ *  slot directory: row count followed by the offset of every row from the start of the row area
+ *  row area:       for every row a null bitmap then its non-null values,
+ *                  ints and doubles are fixed width and strings are length prefixed UTF-8
+ */
+public class PageCodec {
+    // "DBPG", can't be mistaken for the GZIP header of pages written with Java serialization
+    public static final int MAGIC = 0x44425047;
+    private static final short VERSION = 1;
+
+    private static final byte INTEGER = 0;
+    private static final byte DOUBLE = 1;
+    private static final byte STRING = 2;
+
+    public static boolean isBinaryPage(byte[] bytes) {
+        return isBinaryPage(ByteBuffer.wrap(bytes));
+    }
+
+    public static boolean isBinaryPage(ByteBuffer bytes) {
+        return bytes.remaining() >= 4 && bytes.getInt(bytes.position()) == MAGIC;
+    }
+
+    public static byte[] encode(Page page, Schema schema) throws IOException {
+        byte[] types = new byte[schema.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = typeCode(schema.getType(i));
+        }
+
+        // Rows are written first so the slot directory can be filled with their offsets
+        Vector<Tuple> tuples = page.getTuples();
+        int[] offsets = new int[tuples.size()];
+        ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+        DataOutputStream rows = new DataOutputStream(rowBytes);
+        byte[] nullBitmap = new byte[(types.length + 7) / 8];
+        for (int r = 0; r < tuples.size(); r++) {
+            offsets[r] = rows.size();
+            Tuple tuple = tuples.get(r);
+            Arrays.fill(nullBitmap, (byte) 0);
+            for (int i = 0; i < types.length; i++) {
+                if (tuple.get(i) == null) {
+                    nullBitmap[i / 8] |= (byte) (1 << (i % 8));
+                }
+            }
+            rows.write(nullBitmap);
+            for (int i = 0; i < types.length; i++) {
+                Object value = tuple.get(i);
+                if (value == null) {
+                    continue;
+                }
+                switch (types[i]) {
+                    case INTEGER -> rows.writeInt((Integer) value);
+                    case DOUBLE -> rows.writeDouble((Double) value);
+                    default -> {
+                        byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+                        rows.writeInt(utf8.length);
+                        rows.write(utf8);
+                    }
+                }
+            }
+        }
+
+        ByteArrayOutputStream pageBytes = new ByteArrayOutputStream(rows.size() + 64 + 4 * offsets.length);
+        DataOutputStream out = new DataOutputStream(pageBytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(page.getSerial());
+        out.writeShort(types.length);
+        for (int i = 0; i < types.length; i++) {
+            byte[] name = schema.getColumn(i).getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeByte(types[i]);
+        }
+        out.writeShort(schema.getPrimaryKeyOrdinal());
+        out.writeInt(offsets.length);
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        rowBytes.writeTo(out);
+        out.flush();
+        return pageBytes.toByteArray();
+    }
+
+    public static Page decode(byte[] bytes) throws IOException {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    // Decodes straight from the buffer, which can be a view over the memory mapped page file
+    public static Page decode(ByteBuffer bytes) throws IOException {
+        ByteBuffer buffer = bytes.slice();
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary page");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported page version " + version);
+        }
+        int serial = buffer.getInt();
+        String[] columns = new String[buffer.getShort()];
+        byte[] types = new byte[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            columns[i] = new String(name, StandardCharsets.UTF_8);
+            types[i] = buffer.get();
+        }
+        String[] typeNames = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            typeNames[i] = typeName(types[i]);
+        }
+        // One schema for the whole page, the rows only hold their values
+        Schema schema = new Schema(columns, typeNames, buffer.getShort());
+        int[] offsets = new int[buffer.getInt()];
+        for (int r = 0; r < offsets.length; r++) {
+            offsets[r] = buffer.getInt();
+        }
+
+        int rowArea = buffer.position();
+        byte[] nullBitmap = new byte[(columns.length + 7) / 8];
+        Vector<Tuple> tuples = new Vector<>(offsets.length);
+        for (int offset : offsets) {
+            buffer.position(rowArea + offset);
+            buffer.get(nullBitmap);
+            Object[] row = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                if ((nullBitmap[i / 8] & (1 << (i % 8))) != 0) {
+                    continue;
+                }
+                switch (types[i]) {
+                    case INTEGER -> row[i] = buffer.getInt();
+                    case DOUBLE -> row[i] = buffer.getDouble();
+                    default -> {
+                        byte[] utf8 = new byte[buffer.getInt()];
+                        buffer.get(utf8);
+                        row[i] = new String(utf8, StandardCharsets.UTF_8);
+                    }
+                }
+            }
+            tuples.add(new Tuple(row, schema));
+        }
+        return new Page(tuples, serial);
+    }
+
+    private static String typeName(byte type) {
+        return switch (type) {
+            case INTEGER -> "java.lang.Integer";
+            case DOUBLE -> "java.lang.Double";
+            case STRING -> "java.lang.String";
+            default -> throw new IllegalStateException("Unexpected value: " + type);
+        };
+    }
+
+    private static byte typeCode(String type) {
+        return switch (type) {
+            case "java.lang.Integer" -> INTEGER;
+            case "java.lang.Double" -> DOUBLE;
+            case "java.lang.String" -> STRING;
+            default -> throw new IllegalStateException("Unexpected value: " + type);
+        };
+    }
+}
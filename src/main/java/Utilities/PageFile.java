@@ -0,0 +1,218 @@
+package Utilities;
+
+import Main.DBApp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * All the pages of a table stored in one memory mapped file, Pages/[table]/[table].data
+ * The file starts with a header (magic, slot size) followed by fixed-size slots,
+ * page id n lives in slot n-1 so reading a page is an offset lookup into the mapping.
+ * Every slot holds the length of the encoded page followed by its bytes, a length of 0 means an empty slot.
+ * If a page doesn't fit in a slot, the file is rewritten with slots twice as big.
+ * Paged indices keep their nodes in files of the same format next to the pages of their table.
+ */
+public class PageFile {
+    // "DBPF"
+    private static final int MAGIC = 0x44425046;
+    private static final int HEADER_SIZE = 8;
+
+    // Keyed by path, the files of a table all live in Pages/[table]/
+    private static final HashMap<Path, PageFile> openFiles = new HashMap<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotSize;
+
+    private PageFile(Path path, int initialSlotSize) throws IOException {
+        this.path = path;
+        path.getParent().toFile().mkdirs();
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() >= HEADER_SIZE) {
+            map(channel.size());
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Corrupted page file " + path);
+            }
+            slotSize = buffer.getInt(4);
+        } else {
+            slotSize = Math.max(initialSlotSize, 64);
+            map(HEADER_SIZE + 16L * slotSize);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, slotSize);
+        }
+    }
+
+    public static Path getPath(String tableName) {
+        return Path.of("Pages/" + tableName + "/" + tableName + ".data");
+    }
+
+    // Method to get the page file of a table, opening it (and creating it if needed) the first time
+    public static synchronized PageFile of(String tableName) throws IOException {
+        Path path = getPath(tableName);
+        PageFile pageFile = openFiles.get(path);
+        if (pageFile == null) {
+            pageFile = new PageFile(path, DBApp.pageSlotSize);
+            pageFile.importLegacyPages(tableName);
+            openFiles.put(path, pageFile);
+        }
+        return pageFile;
+    }
+
+    // Method to get a file of fixed-size slots that doesn't hold the pages of a table, like the nodes of an index
+    public static synchronized PageFile of(Path path, int initialSlotSize) throws IOException {
+        PageFile pageFile = openFiles.get(path);
+        if (pageFile == null) {
+            pageFile = new PageFile(path, initialSlotSize);
+            openFiles.put(path, pageFile);
+        }
+        return pageFile;
+    }
+
+    // Method to get a read only view over the bytes of a page, null if the page doesn't exist
+    public synchronized ByteBuffer read(int pageId) {
+        long offset = getOffset(pageId);
+        if (offset + 4 > buffer.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt((int) offset);
+        if (length == 0) {
+            return null;
+        }
+        return buffer.slice((int) offset + 4, length).asReadOnlyBuffer();
+    }
+
+    public synchronized void write(int pageId, byte[] bytes) throws IOException {
+        if (bytes.length + 4 > slotSize) {
+            resizeSlots(bytes.length + 4);
+        }
+        long offset = getOffset(pageId);
+        ensureCapacity(offset + slotSize);
+        buffer.putInt((int) offset, bytes.length);
+        buffer.put((int) offset + 4, bytes);
+    }
+
+    public synchronized void delete(int pageId) {
+        long offset = getOffset(pageId);
+        if (offset + 4 <= buffer.capacity()) {
+            buffer.putInt((int) offset, 0);
+        }
+    }
+
+    public synchronized int getSlotSize() {
+        return slotSize;
+    }
+
+    // Method to make sure everything written through the mapping reached the disk
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    public static synchronized void forceAll() {
+        for (PageFile pageFile : openFiles.values()) {
+            pageFile.force();
+        }
+    }
+
+    // Method to close every open file of a table, its pages and the files of its indices
+    public static synchronized void close(String tableName) throws IOException {
+        Path directory = getPath(tableName).getParent();
+        for (Path path : new ArrayList<>(openFiles.keySet())) {
+            if (directory.equals(path.getParent())) {
+                close(path);
+            }
+        }
+    }
+
+    public static synchronized void close(Path path) throws IOException {
+        PageFile pageFile = openFiles.remove(path);
+        if (pageFile != null) {
+            pageFile.force();
+            pageFile.channel.close();
+        }
+    }
+
+    // Method to delete the page file of a table along with all of its pages
+    public static synchronized void delete(String tableName) throws IOException {
+        close(tableName);
+        Files.deleteIfExists(getPath(tableName));
+    }
+
+    public static synchronized void delete(Path path) throws IOException {
+        close(path);
+        Files.deleteIfExists(path);
+    }
+
+    private long getOffset(int pageId) {
+        return HEADER_SIZE + (long) (pageId - 1) * slotSize;
+    }
+
+    private void map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Page file " + path + " is too big to be mapped");
+        }
+        // Mapping past the end of the file extends it, the new slots are all zeros so they are empty
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void ensureCapacity(long size) throws IOException {
+        if (size > buffer.capacity()) {
+            map(Math.max(size, 2L * buffer.capacity()));
+        }
+    }
+
+    // Method to rewrite the whole file with slots big enough for a page of the given size
+    private void resizeSlots(int minimumSlotSize) throws IOException {
+        int newSlotSize = slotSize;
+        while (newSlotSize < minimumSlotSize) {
+            newSlotSize *= 2;
+        }
+        List<byte[]> pages = new ArrayList<>();
+        for (long offset = HEADER_SIZE; offset + 4 <= buffer.capacity(); offset += slotSize) {
+            int length = buffer.getInt((int) offset);
+            byte[] bytes = new byte[length];
+            buffer.get((int) offset + 4, bytes);
+            pages.add(bytes);
+        }
+        slotSize = newSlotSize;
+        channel.truncate(HEADER_SIZE);
+        map(HEADER_SIZE + (long) Math.max(pages.size(), 16) * slotSize);
+        buffer.putInt(4, slotSize);
+        for (int i = 0; i < pages.size(); i++) {
+            long offset = getOffset(i + 1);
+            buffer.putInt((int) offset, pages.get(i).length);
+            buffer.put((int) offset + 4, pages.get(i));
+        }
+    }
+
+    // Pages used to be stored one per file as Pages/[table]/[table][serial].ser, move them into the page file
+    private void importLegacyPages(String tableName) throws IOException {
+        File[] files = new File("Pages/" + tableName).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            // Other files of the table, like the nodes of paged indices, are left alone
+            if (!name.startsWith(tableName) || !name.endsWith(".ser") || name.length() < tableName.length() + 4) {
+                continue;
+            }
+            String serial = name.substring(tableName.length(), name.length() - 4);
+            if (serial.matches("\\d+")) {
+                write(Integer.parseInt(serial), Files.readAllBytes(file.toPath()));
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package Utilities;
+
+/**
+ * The on-disk format of the pages of a table.
+ * JAVA pages are GZIP'd object streams, BINARY pages are encoded by {@link PageCodec}.
+ */
+public enum PageFormat {
+    JAVA,
+    BINARY
+}
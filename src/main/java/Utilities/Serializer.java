@@ -1,41 +1,56 @@
 package Utilities;
 
+import BTree.BTree;
+import Index.ValueIndex;
 import Main.Page;
 import Main.Table;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class Serializer {
 
-    // Method to serialize the page
-    public static void serializePage(Page page, String tableName, int serial) {
+    // Method to serialize the page in the page format of its table, it's written to the table's page file
+    public static void serializePage(Page page, Table table) {
         try {
-            FileOutputStream fileOutputStream = new FileOutputStream("Pages/" + tableName + "/" + tableName + serial + ".ser");
-
-            ObjectOutputStream objOutputStream = new ObjectOutputStream(new GZIPOutputStream(fileOutputStream));
-
-            objOutputStream.writeObject(page);
-            //we don't want a memory leak if we can avoid it
-            objOutputStream.close();
-            fileOutputStream.close();
+            byte[] bytes;
+            if (table.getPageFormat() == PageFormat.BINARY) {
+                bytes = PageCodec.encode(page, table.getSchema());
+            } else {
+                ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
+                ObjectOutputStream objOutputStream = new ObjectOutputStream(new GZIPOutputStream(byteOutputStream));
+                objOutputStream.writeObject(page);
+                //we don't want a memory leak if we can avoid it
+                objOutputStream.close();
+                bytes = byteOutputStream.toByteArray();
+            }
+            PageFile.of(table.getTableName()).write(page.getSerial(), bytes);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    // Method to deserialize the page
+    // Method to deserialize the page, the format is detected from the page's bytes so pages
+    // written before the table switched formats can still be read
     public static Page deserializePage(String tableName,int serial){
         try {
-            FileInputStream fileInputStream = new FileInputStream ("Pages/" + tableName + "/" + tableName + serial +".ser");
-
-            ObjectInputStream objInputStream = new ObjectInputStream(new GZIPInputStream(fileInputStream));
+            ByteBuffer bytes = PageFile.of(tableName).read(serial);
+            if (bytes == null) {
+                throw new FileNotFoundException("Page " + serial + " of table " + tableName + " doesn't exist");
+            }
+            if (PageCodec.isBinaryPage(bytes)) {
+                return PageCodec.decode(bytes);
+            }
+
+            byte[] javaBytes = new byte[bytes.remaining()];
+            bytes.get(javaBytes);
+            ObjectInputStream objInputStream = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(javaBytes)));
 
             Page page = (Page) objInputStream.readObject();
 
             objInputStream.close();
-            fileInputStream.close();
 
             return page;
 
@@ -45,6 +60,24 @@ public class Serializer {
         return null;
     }
 
+    // Method to delete a page from the table's page file
+    public static void deletePage(String tableName, int serial) {
+        try {
+            PageFile.of(tableName).delete(serial);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Method to delete all the pages of a table
+    public static void deletePages(String tableName) {
+        try {
+            PageFile.delete(tableName);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     // Method to serialize the table
     public static void serializeTable(Table table, String tableName) {
         try {
@@ -81,4 +114,72 @@ public class Serializer {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    // Every index is written to its own file next to the pages of its table
+    public static String getIndexPath(String tableName, String indexName) {
+        return getIndexPath(tableName, indexName, IndexType.BTREE);
+    }
+
+    public static String getIndexPath(String tableName, String indexName, IndexType indexType) {
+        String extension = switch (indexType) {
+            case BTREE -> ".tree";
+            case BITMAP -> ".bitmap";
+            case HASH -> ".hash";
+        };
+        return "Pages/" + tableName + "/" + indexName + extension;
+    }
+
+    // Method to serialize an index, the nodes of paged indices are in their own file and aren't part of it
+    public static void serializeIndex(BTree<?, ?> index, String tableName) {
+        writeIndexFile(index, getIndexPath(tableName, index.getIndexName()));
+    }
+
+    public static void serializeIndex(ValueIndex index, String tableName) {
+        writeIndexFile(index, getIndexPath(tableName, index.getIndexName(), index.getIndexType()));
+    }
+
+    private static void writeIndexFile(Serializable index, String path) {
+        try {
+            FileOutputStream fileOutputStream = new FileOutputStream(path);
+
+            ObjectOutputStream objOutputStream = new ObjectOutputStream(new GZIPOutputStream(fileOutputStream));
+
+            objOutputStream.writeObject(index);
+            objOutputStream.close();
+            fileOutputStream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Method to deserialize an index
+    public static <TKey extends Comparable<TKey>> BTree<TKey, String> deserializeIndex(String tableName, String indexName) {
+        // The key type is only known to the caller, the index file was written for the same table and columns
+        @SuppressWarnings("unchecked")
+        BTree<TKey, String> index = (BTree<TKey, String>) readIndexFile(getIndexPath(tableName, indexName));
+        return index;
+    }
+
+    public static ValueIndex deserializeIndex(String tableName, String indexName, IndexType indexType) {
+        return (ValueIndex) readIndexFile(getIndexPath(tableName, indexName, indexType));
+    }
+
+    private static Object readIndexFile(String path) {
+        try {
+            FileInputStream fileInputStream = new FileInputStream(path);
+
+            ObjectInputStream objInputStream = new ObjectInputStream(new GZIPInputStream(fileInputStream));
+
+            Object index = objInputStream.readObject();
+
+            objInputStream.close();
+            fileInputStream.close();
+
+            return index;
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
@@ -2,6 +2,7 @@ package sql.parser;
 
 import Exception.DBAppException;
 import Main.DBApp;
+import Utilities.IndexType;
 import sql.SQLTerm;
 import sql.antlr.SQLiteParser;
 import sql.antlr.SQLiteParserBaseListener;
@@ -15,9 +16,21 @@ import java.util.Scanner;
 
 public class DBListener extends SQLiteParserBaseListener {
     private final DBApp dbApp;
+    // Type of the index created by a CREATE INDEX statement, given by its USING clause
+    private final IndexType indexType;
+    // Columns whose values are kept in the leaves of the index created by a CREATE INDEX statement, given by its INCLUDE clause
+    private final String[] includedColumns;
     private Iterator result;
     public DBListener(DBApp dbApp) {
+        this(dbApp, IndexType.BTREE);
+    }
+    public DBListener(DBApp dbApp, IndexType indexType) {
+        this(dbApp, indexType, new String[0]);
+    }
+    public DBListener(DBApp dbApp, IndexType indexType, String[] includedColumns) {
         this.dbApp = dbApp;
+        this.indexType = indexType;
+        this.includedColumns = includedColumns;
     }
 
     public Iterator getResult() {
@@ -184,15 +197,38 @@ public class DBListener extends SQLiteParserBaseListener {
         String indexName = ctx.index_name().getText();
         int size = ctx.indexed_column().size();
 
-        if(size == 1){
+        if(includedColumns.length > 0){
+            if(indexType != IndexType.BTREE){
+                throw new RuntimeException("Included columns are only supported in B+ tree indexes");
+            }
+            String[] columnNames = new String[size];
+            for (int i = 0; i < size; i++) {
+                columnNames[i] = ctx.indexed_column(i).column_name().getText();
+            }
+            try {
+                dbApp.createIndex(tableName, columnNames, indexName, includedColumns);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }else if(size == 1){
             String columnName = ctx.indexed_column(0).column_name().getText();
             try {
-                dbApp.createIndex(tableName, columnName,indexName);
+                dbApp.createIndex(tableName, columnName,indexName,indexType);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }else if(indexType == IndexType.BTREE){
+            String[] columnNames = new String[size];
+            for (int i = 0; i < size; i++) {
+                columnNames[i] = ctx.indexed_column(i).column_name().getText();
+            }
+            try {
+                dbApp.createIndex(tableName, columnNames, indexName);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         }else{
-            throw new RuntimeException("Composite Indexes are not supported");
+            throw new RuntimeException("Composite Indexes are only supported as B+ trees");
         }
 
     }
@@ -265,19 +301,21 @@ public class DBListener extends SQLiteParserBaseListener {
 
     @Override
     public void enterSelect_stmt(SQLiteParser.Select_stmtContext ctx) {
-        //ArrayList<String> columns = new ArrayList<>();
+        ArrayList<String> columns = new ArrayList<>();
         ArrayList<SQLiteParser.ExprContext> exprs = new ArrayList<>();
         ArrayList<String> operators = new ArrayList<>();
         String tableName = ctx.select_core(0).table_or_subquery(0).table_name().getText();
 
-//        for (SQLiteParser.Result_columnContext column : ctx.select_core(0).result_column()) {
-//            columns.add(column.getText());
-//        }
+        for (SQLiteParser.Result_columnContext column : ctx.select_core(0).result_column()) {
+            columns.add(column.getText());
+        }
+        // SELECT * keeps every column
+        String[] colNames = columns.contains("*") ? null : columns.toArray(new String[0]);
         if(ctx.select_core(0).expr().size() == 0){
             try {
                 SQLTerm[] terms = new SQLTerm[1];
                 terms[0] = new SQLTerm(tableName, null, null, null);
-                result = dbApp.selectFromTable(terms, new String[0]);
+                result = dbApp.selectFromTable(terms, new String[0], colNames);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -295,7 +333,7 @@ public class DBListener extends SQLiteParserBaseListener {
                 Object value = parseTypeFromTable(tableName,columnName,expr.expr(1).getText());
                 terms[i] = new SQLTerm(tableName, columnName, operator, value);
             }
-            result = dbApp.selectFromTable(terms, operators.toArray(new String[0]));
+            result = dbApp.selectFromTable(terms, operators.toArray(new String[0]), colNames);
         }catch (DBAppException e){
             throw new RuntimeException(e);
         }
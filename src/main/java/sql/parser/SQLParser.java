@@ -2,6 +2,7 @@ package sql.parser;
 
 import Exception.DBAppException;
 import Main.DBApp;
+import Utilities.IndexType;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
@@ -11,8 +12,15 @@ import sql.antlr.SQLiteParser;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class SQLParser {
+    // The SQLite grammar has no USING clause for CREATE INDEX, so the index type is taken off the statement before it's parsed
+    private static final Pattern INDEX_TYPE = Pattern.compile("(?is)^(\\s*CREATE\\s+(?:UNIQUE\\s+)?INDEX\\b.*?)\\s+USING\\s+([\\w+]+)\\s*(;?)\\s*$");
+    // Same for the INCLUDE (columns) clause of covering indices, it comes right after the indexed columns
+    private static final Pattern INCLUDED_COLUMNS = Pattern.compile("(?is)^(\\s*CREATE\\s+(?:UNIQUE\\s+)?INDEX\\b.*?\\))\\s+INCLUDE\\s*\\(([^)]*)\\)(.*)$");
+
     DBApp dbApp;
 
     public SQLParser(DBApp dbApp) {
@@ -20,13 +28,29 @@ public class SQLParser {
     }
 
     public Iterator parseSQL(StringBuffer sql) throws DBAppException{
-        CharStream stream = CharStreams.fromString(sql.toString());
+        String statement = sql.toString();
+        String[] includedColumns = new String[0];
+        Matcher included = INCLUDED_COLUMNS.matcher(statement);
+        if (included.matches()) {
+            includedColumns = included.group(2).trim().split("\\s*,\\s*");
+            statement = included.group(1) + included.group(3);
+        }
+        IndexType indexType = IndexType.BTREE;
+        Matcher matcher = INDEX_TYPE.matcher(statement);
+        if (matcher.matches()) {
+            indexType = IndexType.of(matcher.group(2));
+            if (indexType == null) {
+                throw new DBAppException("Unsupported index type " + matcher.group(2));
+            }
+            statement = matcher.group(1) + matcher.group(3);
+        }
+        CharStream stream = CharStreams.fromString(statement);
         SQLiteLexer lexer = new SQLiteLexer(stream);
         CommonTokenStream tokens = new CommonTokenStream(lexer);
         SQLiteParser parser = new SQLiteParser(tokens);
         SQLiteParser.ParseContext parseContext = parser.parse();
         determineStatementType(parseContext);
-        DBListener listener = new DBListener(dbApp);
+        DBListener listener = new DBListener(dbApp, indexType, includedColumns);
         ParseTreeWalker.DEFAULT.walk(listener, parseContext);
         return listener.getResult();
     }
@@ -1,18 +1,35 @@
 import BTree.BTree;
+import BTree.BTreeCursor;
+import BTree.CompositeKey;
+import BTree.Pointer;
+import BTree.PostingList;
+import BTree.RecordId;
 import Exception.DBAppException;
 import Main.DBApp;
 import Main.Page;
 import Main.Table;
 import Main.Tuple;
+import Utilities.IndexType;
+import Utilities.PageCodec;
+import Utilities.PageFile;
+import Utilities.PageFormat;
 import Utilities.Serializer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import sql.SQLTerm;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,8 +126,8 @@ public class DBAppTest {
 		engine.insertIntoTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
-		assertEquals(1, Objects.requireNonNull(table).getPageNames().size());
+		Table table = persistedTable();
+		assertEquals(1, Objects.requireNonNull(table).getPageIds().size());
 		Page page = table.getPageAtPosition(0);
 		assertEquals(1, page.getSize());
 	}
@@ -128,9 +145,9 @@ public class DBAppTest {
 		engine.insertIntoTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
-		assertEquals(1,table.getPageNames().size());
+		assertEquals(1,table.getPageIds().size());
 		Page page = table.getPageAtPosition(0);
 		assertEquals(1, page.getSize());
 	}
@@ -147,9 +164,9 @@ public class DBAppTest {
 			engine.insertIntoTable(newTableName, htblColNameValue);
 		}
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
-		assertEquals(2, table.getPageNames().size());
+		assertEquals(2, table.getPageIds().size());
 		Page page = table.getPageAtPosition(1);
 		assertEquals(99, page.getSize());
 		page = table.getPageAtPosition(0);
@@ -168,15 +185,153 @@ public class DBAppTest {
 			engine.insertIntoTable(newTableName, htblColNameValue);
 		}
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
-		assertEquals(2, table.getPageNames().size());
+		assertEquals(2, table.getPageIds().size());
 		Page page = table.getPageAtPosition(1);
 		assertEquals(99, page.getSize());
 		page = table.getPageAtPosition(0);
 		assertTrue(page.isFull());
 	}
 
+	@Test
+	void testBulkInsert_UnsortedRowsIntoTableWithIndex_ShouldMergeAndRebuildIndex() throws DBAppException {
+		// Given
+		engine.createIndex(newTableName, gpa, gpa+"Index");
+		for (int i = 0; i < 200; i += 2)
+			insertRow(i);
+		List<Hashtable<String, Object>> rows = new ArrayList<>();
+		for (int i = 399; i > 0; i -= 2)
+			rows.add(createRow(i, TEST_NAME, i / 10.0));
+
+		// When
+		engine.bulkInsert(newTableName, rows.iterator());
+
+		// Then
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(300, table.getSize());
+		assertEquals(List.of(1, 2), table.getPageIds());
+		assertEquals(DBApp.pageSize * DBApp.bulkLoadFillFactor / 100, table.getPageAtPosition(0).getSize());
+		Page page = table.getPageAtPosition(0);
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, page.getTuples().get(i).getPrimaryKeyValue());
+		assertEquals(399, table.getPageAtPosition(1).getLastTuple().getPrimaryKeyValue());
+		assertTrue(((BTree<Double, String>) table.getBTrees().get(0)).checkKeyExists(39.9));
+		assertTrue(((BTree<Double, String>) table.getBTrees().get(0)).checkKeyExists(TEST_GPA));
+	}
+
+	@Test
+	void testBulkInsert_ExistingPrimaryKey_ShouldFailWithoutInserting() throws DBAppException {
+		// Given
+		for (int i = 0; i < 10; i++)
+			insertRow(i);
+		List<Hashtable<String, Object>> rows = List.of(createRow(20, TEST_NAME, TEST_GPA), createRow(5, TEST_NAME, TEST_GPA));
+
+		// When
+		Exception exception = assertThrows(DBAppException.class, () ->
+				engine.bulkInsert(newTableName, rows.iterator())
+		);
+
+		// Then
+		assertEquals("Primary key already exists", exception.getMessage());
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(10, table.getSize());
+		assertEquals(10, table.getPageAtPosition(0).getSize());
+	}
+
+	@Test
+	void testInsertIntoTable_SplitPagesOnInsert_ShouldSplitFullPageInTwo() throws DBAppException {
+		// Given
+		engine.createIndex(newTableName, id, id+"Index");
+		DBApp.splitPagesOnInsert = 1;
+		try {
+			for (int i = 0; i < 400; i += 2)
+				insertRow(i);
+			for (int i = 1; i < 200; i += 2)
+				insertRow(i);
+
+			// When
+			insertRow(-1);
+		} finally {
+			DBApp.splitPagesOnInsert = 0;
+		}
+
+		// Then
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(301, table.getSize());
+		assertEquals(List.of(1, 3, 2), table.getPageIds());
+		assertEquals(101, table.getPageAtPosition(0).getSize());
+		assertEquals(100, table.getPageAtPosition(1).getTuples().get(0).getPrimaryKeyValue());
+		assertEquals(List.of("3-150"), ((BTree<Integer, String>) table.getBTree(id)).search(150));
+		SQLTerm[] sqlTerms = new SQLTerm[2];
+		sqlTerms[0] = new SQLTerm(newTableName, id, ">=", 150);
+		sqlTerms[1] = new SQLTerm(newTableName, id, "<", 250);
+		Iterator it = engine.selectFromTable(sqlTerms, new String[] { "AND" });
+		assertEquals(75, getIteratorSize(it));
+	}
+
+	@Test
+	void testInsertIntoTable_ShiftWithLogicalSecondaryIndex_ShouldKeepIndexOnPrimaryKeys() throws DBAppException {
+		// Given
+		engine.createIndex(newTableName, name, name+"Index");
+		for (int i = 0; i < 400; i += 2)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + i, TEST_GPA));
+
+		// When
+		engine.insertIntoTable(newTableName, createRow(-1, "name-1", TEST_GPA));
+
+		// Then
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(List.of("398"), ((BTree<String, String>) table.getBTree(name)).search("name398"));
+		assertEquals(List.of("-1"), ((BTree<String, String>) table.getBTree(name)).search("name-1"));
+		SQLTerm[] sqlTerms = new SQLTerm[1];
+		sqlTerms[0] = new SQLTerm(newTableName, name, "=", "name398");
+		Iterator it = engine.selectFromTable(sqlTerms, new String[0]);
+		assertEquals(398, ((Tuple) it.next()).getPrimaryKeyValue());
+		assertFalse(it.hasNext());
+		Hashtable<String, Object> htblColNameValue = new Hashtable<>();
+		htblColNameValue.put(name, "name398");
+		engine.deleteFromTable(newTableName, htblColNameValue);
+		table = persistedTable();
+		assert table != null;
+		assertEquals(200, table.getSize());
+		assertFalse(((BTree<String, String>) table.getBTree(name)).checkKeyExists("name398"));
+	}
+
+	@Test
+	void testCreateIndex_IntegerClusteringKey_ShouldStoreRecordIds() throws DBAppException {
+		// Given
+		for (int i = -300; i < 0; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + (i % 7), TEST_GPA));
+
+		// When
+		engine.createIndex(newTableName, id, id+"Index");
+		engine.createIndex(newTableName, name, name+"Index");
+		Hashtable<String, Object> htblColNameValue = new Hashtable<>();
+		htblColNameValue.put(name, "name-3");
+		engine.updateTable(newTableName, "-299", htblColNameValue);
+
+		// Then
+		long recordId = RecordId.of(2, -5);
+		assertEquals(2, RecordId.pageSerial(recordId));
+		assertEquals(-5, RecordId.primaryKey(recordId));
+		assertTrue(RecordId.of(2, -5) < RecordId.of(2, 4));
+		Table table = persistedTable();
+		assert table != null;
+		assertTrue(table.getBTree(id).hasRecordIds());
+		assertEquals(List.of("2-" + -50), ((BTree<Integer, String>) table.getBTree(id)).search(-50));
+		assertEquals("-299", ((BTree<String, String>) table.getBTree(name)).search("name-3").get(0));
+		SQLTerm[] sqlTerms = new SQLTerm[2];
+		sqlTerms[0] = new SQLTerm(newTableName, name, "=", "name-3");
+		sqlTerms[1] = new SQLTerm(newTableName, id, "<", -100);
+		Iterator it = engine.selectFromTable(sqlTerms, new String[] { "AND" });
+		assertEquals(30, getIteratorSize(it));
+	}
+
 	@Test
 	void testInsertIntoTable_InsertingLastRecordIntoFullPage_ShouldInsertSuccessfully() throws DBAppException {
 		// Given
@@ -190,9 +345,9 @@ public class DBAppTest {
 		engine.insertIntoTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
-		assertEquals(2, table.getPageNames().size());
+		assertEquals(2, table.getPageIds().size());
 		Page page = table.getPageAtPosition(0);
 		assertTrue(page.isFull());
 		assertEquals(399,page.getTuples().get(199).getPrimaryKeyValue());
@@ -211,9 +366,9 @@ public class DBAppTest {
 		engine.insertIntoTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
-		assertEquals(3, table.getPageNames().size());
+		assertEquals(3, table.getPageIds().size());
 		Page page = table.getPageAtPosition(0);
 		assertEquals(399,page.getTuples().get(199).getPrimaryKeyValue());
 		page = table.getPageAtPosition(1);
@@ -225,9 +380,11 @@ public class DBAppTest {
 	@Test
 	void testInsertIntoTable_CorruptedAttributes_ShouldFailInsert() {
 		// Given
-		Table table = Objects.requireNonNull(Serializer.deserializeTable(newTableName));
+		Table table = Objects.requireNonNull(persistedTable());
 		table.getAttributes().replace(id, "java.lang.String");
 		Serializer.serializeTable(table,newTableName);
+		// Tables are validated once when they are loaded, so reopen the app to reload it
+		engine = new DBApp();
 		Hashtable<String, Object> htblColNameValue = createRow(1, TEST_NAME, TEST_GPA);
 
 		// When
@@ -278,6 +435,30 @@ public class DBAppTest {
 		assertEquals(expectedMessage,outputMessage);
 	}
 
+	@Test
+	void testInsertIntoTable_InvalidDataTypeIntoFullPage_ShouldKeepTheLastTuple() throws DBAppException {
+		// Given
+		for (int i = 0; i < 400; i += 2) {
+			insertRow(i);
+		}
+		Hashtable<String, Object> htblColNameValue = new Hashtable<>();
+		htblColNameValue.put(id, 51);
+		htblColNameValue.put(name, 7);
+		htblColNameValue.put(gpa, 1.0);
+
+		// When
+		assertThrows(DBAppException.class, () -> engine.insertIntoTable(newTableName, htblColNameValue));
+
+		// Then
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(200, table.getSize());
+		Page page = persistedPage(1);
+		assert page != null;
+		assertEquals(200, page.getSize());
+		assertEquals(398, page.getLastTuple().getPrimaryKeyValue());
+	}
+
 	@Test
 	void testInsertIntoTable_MissingPrimaryKey_ShouldFailInsert() {
 		// Given
@@ -348,7 +529,7 @@ public class DBAppTest {
 		engine.updateTable(newTableName, "1", htblColNameValue);
 
 		// Then
-		Page page = Serializer.deserializePage(newTableName, 1);
+		Page page = persistedPage(1);
 		assert page != null;
 		Tuple updated = page.getTuples().get(0);
 		assertEquals(updatedName,updated.getValues().get(name));
@@ -411,6 +592,26 @@ public class DBAppTest {
 		assertEquals(expectedMessage, outputMessage);
 	}
 
+	@Test
+	void testUpdateTable_OneInvalidDataType_ShouldNotUpdateAnyColumn() throws DBAppException {
+		// Given
+		insertRow(1);
+		Hashtable<String, Object> htblColNameValue = new Hashtable<>();
+		htblColNameValue.put(name, "changedA");
+		htblColNameValue.put(gpa, "bad");
+
+		// When
+		assertThrows(DBAppException.class, () -> engine.updateTable(newTableName, "1", htblColNameValue));
+
+		// Then
+		SQLTerm[] sqlTerms = new SQLTerm[] { new SQLTerm(newTableName, id, "=", 1) };
+		Iterator it = engine.selectFromTable(sqlTerms, new String[0]);
+		assertEquals(TEST_NAME, ((Tuple) it.next()).getValues().get(name));
+		Page page = persistedPage(1);
+		assert page != null;
+		assertEquals(TEST_NAME, page.getTuples().get(0).getValues().get(name));
+	}
+
 	@Test
 	void testUpdateTable_InvalidTableName_ShouldFailUpdate() throws DBAppException {
 		// Given
@@ -441,7 +642,7 @@ public class DBAppTest {
 		engine.deleteFromTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
 		assertTrue(table.isEmpty());
 	}
@@ -460,7 +661,7 @@ public class DBAppTest {
 		engine.deleteFromTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
 		assertEquals(99, table.getSize());
 	}
@@ -479,9 +680,9 @@ public class DBAppTest {
 		engine.deleteFromTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
-		assertEquals(2,table.getPageNames().size());
+		assertEquals(2,table.getPageIds().size());
 		assertEquals(300, table.getSize());
 		assertEquals(400, table.getPageAtPosition(1).getTuples().get(0).getPrimaryKeyValue());
 		assertEquals(3, table.getPageAtPosition(1).getSerial());
@@ -506,9 +707,9 @@ public class DBAppTest {
 		}
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
-		assertEquals(3,table.getPageNames().size());
+		assertEquals(3,table.getPageIds().size());
 		assertEquals(600, table.getSize());
 		assertEquals(400, table.getPageAtPosition(1).getTuples().get(0).getPrimaryKeyValue());
 		//assertEquals(2, table.getPageAtPosition(1).getSerial());
@@ -527,7 +728,7 @@ public class DBAppTest {
 		engine.deleteFromTable(newTableName, htblColNameValue);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
 		assertTrue(table.isEmpty());
 	}
@@ -598,12 +799,29 @@ public class DBAppTest {
 		engine.createIndex(newTableName, gpa, gpa+"Index");
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
 		assertEquals(1,table.getBTree(gpa).getRootKeyCount());
 		assertEquals(1, table.getIndexNames().size());
 	}
 
+	@Test
+	void testCreateIndex_UnflushedPages_ShouldWritePagesWithTheTable() throws DBAppException {
+		// Given
+		insertRow(1);
+
+		// When
+		engine.createIndex(newTableName, gpa, gpa+"Index");
+
+		// Then
+		Table table = Serializer.deserializeTable(newTableName);
+		assert table != null;
+		assertEquals(1, table.getSize());
+		Page page = Serializer.deserializePage(newTableName, 1);
+		assert page != null;
+		assertEquals(1, page.getSize());
+	}
+
 	@Test
 	void testCreateIndex_RepeatedIndex_ShouldFailCreation() throws DBAppException {
 		// Given
@@ -641,7 +859,7 @@ public class DBAppTest {
 	void testInsertionIntoIndex_ValidInput_ShouldInsertIntoIndex() throws DBAppException {
 		// Given
 		engine.createIndex(newTableName, gpa, gpa+"Index");
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
 		int oldSize = table.getBTrees().get(0).getRootKeyCount();
 
@@ -649,7 +867,7 @@ public class DBAppTest {
 		insertRow(1);
 
 		// Then
-		table = Serializer.deserializeTable(newTableName);
+		table = persistedTable();
 		assert table != null;
 		int newSize = table.getBTrees().get(0).getRootKeyCount();
 		assertEquals(oldSize+1, newSize);
@@ -661,7 +879,7 @@ public class DBAppTest {
 		// Given
 		engine.createIndex(newTableName, gpa, gpa+"Index");
 		insertRow(3);
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
 		boolean oldValue = ((BTree<Double, String>)table.getBTrees().get(0)).checkKeyExists(TEST_GPA);
 
@@ -671,7 +889,7 @@ public class DBAppTest {
 		engine.updateTable(newTableName, "3", updateTable);
 
 		// Then
-		table = Serializer.deserializeTable(newTableName);
+		table = persistedTable();
 		assert table != null;
 		boolean oldValueCheck = ((BTree<Double, String>)table.getBTrees().get(0)).checkKeyExists(TEST_GPA);
 		boolean newValueCheck = ((BTree<Double, String>)table.getBTrees().get(0)).checkKeyExists(0.7);
@@ -808,6 +1026,50 @@ public class DBAppTest {
 		assertEquals(5,getIteratorSize(it));
 	}
 
+	@Test
+	void testSelectFromTable_RangeOverManyPages_ShouldStreamTuplesInOrder() throws DBAppException {
+		// Given
+		for (int i = 1; i <= 450; i++)
+			insertRow(i);
+
+		// When
+		SQLTerm[] sqlTerms = new SQLTerm[2];
+		sqlTerms[0] = new SQLTerm(newTableName, id, ">", 100);
+		sqlTerms[1] = new SQLTerm(newTableName, id, "<=", 420);
+		String[] strArrOperator = new String[] { "AND" };
+		Iterator it = engine.selectFromTable(sqlTerms, strArrOperator);
+
+		// Then
+		int expectedId = 101;
+		while (it.hasNext()) {
+			assertEquals(expectedId++, ((Tuple) it.next()).getPrimaryKeyValue());
+		}
+		assertEquals(421, expectedId);
+	}
+
+	@Test
+	void testSelectFromTable_DoubleRangeOrKey_ShouldMatchEveryPage() throws DBAppException {
+		// Given
+		for (int i = 0; i < 400; i++)
+			engine.insertIntoTable(newTableName, createRow(i, TEST_NAME, i / 100.0));
+
+		// When
+		SQLTerm[] sqlTerms = new SQLTerm[3];
+		sqlTerms[0] = new SQLTerm(newTableName, gpa, ">=", 1.0);
+		sqlTerms[1] = new SQLTerm(newTableName, gpa, "<", 2.0);
+		sqlTerms[2] = new SQLTerm(newTableName, id, "=", 350);
+		String[] strArrOperator = new String[] { "AND", "OR" };
+		Iterator it = engine.selectFromTable(sqlTerms, strArrOperator);
+
+		// Then
+		int expectedId = 100;
+		while (expectedId < 200) {
+			assertEquals(expectedId++, ((Tuple) it.next()).getPrimaryKeyValue());
+		}
+		assertEquals(350, ((Tuple) it.next()).getPrimaryKeyValue());
+		assertFalse(it.hasNext());
+	}
+
 	@Test
 	void testSelectFromTable_WrongNumberOfOperators_ShouldFailSelection() throws DBAppException {
 		// Given
@@ -917,13 +1179,13 @@ public class DBAppTest {
 			insertRow(i);
 		StringBuffer command = new StringBuffer(
 				"INSERT INTO " +newTableName + "(id, gpa, name) VALUES (10, 1.7, 'Abdo');");
-		int oldSize = Objects.requireNonNull(Serializer.deserializeTable(newTableName)).getSize();
+		int oldSize = Objects.requireNonNull(persistedTable()).getSize();
 
 		// When
 		engine.parseSQL(command);
 
 		// Then
-		int newSize = Objects.requireNonNull(Serializer.deserializeTable(newTableName)).getSize();
+		int newSize = Objects.requireNonNull(persistedTable()).getSize();
 		assertEquals(oldSize + 1,  newSize);
 	}
 
@@ -932,12 +1194,12 @@ public class DBAppTest {
 		// Given
 		insertRow(1);
 		StringBuffer command = new StringBuffer("UPDATE " + newTableName + " SET gpa = 1.5 WHERE id = 1; ");
-		double oldGpa = (double) (Objects.requireNonNull(Serializer.deserializePage(newTableName, 1)).getTuples().get(0).getValues().get("gpa"));
+		double oldGpa = (double) (Objects.requireNonNull(persistedPage(1)).getTuples().get(0).getValues().get("gpa"));
 		// When
 		engine.parseSQL(command);
 
 		// Then
-		double newGpa = (double) (Objects.requireNonNull(Serializer.deserializePage(newTableName, 1)).getTuples().get(0).getValues().get("gpa"));
+		double newGpa = (double) (Objects.requireNonNull(persistedPage(1)).getTuples().get(0).getValues().get("gpa"));
 		assertEquals(TEST_GPA, oldGpa);
 		assertEquals(1.5, newGpa);
 	}
@@ -952,12 +1214,672 @@ public class DBAppTest {
 		engine.parseSQL(command);
 
 		// Then
-		Table table = Serializer.deserializeTable(newTableName);
+		Table table = persistedTable();
 		assert table != null;
 		assertTrue(table.isEmpty());
 	}
 
 
+	@Test
+	void testCheckpoint_InsertIntoTable_ShouldPersistOnlyAfterCheckpoint() throws DBAppException {
+		// Given
+		insertRow(1);
+
+		// When
+		Table beforeCheckpoint = Serializer.deserializeTable(newTableName);
+		engine.checkpoint();
+		Table afterCheckpoint = Serializer.deserializeTable(newTableName);
+
+		// Then
+		assertEquals(0, Objects.requireNonNull(beforeCheckpoint).getSize());
+		assertEquals(1, Objects.requireNonNull(afterCheckpoint).getSize());
+	}
+
+
+	@Test
+	void testBufferPool_UpdateTable_ShouldWritePageOnlyOnFlush() throws DBAppException {
+		// Given
+		insertRow(1);
+		engine.checkpoint();
+		Hashtable<String, Object> htblColNameValue = new Hashtable<>();
+		htblColNameValue.put(name, "moham");
+
+		// When
+		engine.updateTable(newTableName, "1", htblColNameValue);
+		Page beforeFlush = Serializer.deserializePage(newTableName, 1);
+		engine.checkpoint();
+		Page afterFlush = Serializer.deserializePage(newTableName, 1);
+
+		// Then
+		assertEquals(TEST_NAME, Objects.requireNonNull(beforeFlush).getTuples().get(0).getValues().get(name));
+		assertEquals("moham", Objects.requireNonNull(afterFlush).getTuples().get(0).getValues().get(name));
+		assertTrue(engine.getBufferPool().size() <= DBApp.bufferPoolPages);
+	}
+
+
+	@Test
+	void testClose_ShouldPersistTablesAndShutDownIOExecutor() throws DBAppException {
+		// Given
+		for (int i = 0; i < 250; i++)
+			insertRow(i);
+
+		// When
+		engine.close();
+
+		// Then
+		assertTrue(engine.getIOExecutor().isShutdown());
+		Table table = Serializer.deserializeTable(newTableName);
+		assert table != null;
+		assertEquals(250, table.getSize());
+		assertEquals(2, table.getPages(newTableName).size());
+	}
+
+
+	@Test
+	void testGetPages_InterruptedRead_ShouldThrowAndKeepTheInterrupt() throws DBAppException {
+		// Given
+		for (int i = 0; i < 250; i++)
+			insertRow(i);
+		Table table = persistedTable();
+		assert table != null;
+		table.setIOExecutor(engine.getIOExecutor());
+
+		// When
+		Thread.currentThread().interrupt();
+		assertThrows(IllegalStateException.class, () -> table.getPages(newTableName));
+
+		// Then
+		assertTrue(Thread.interrupted());
+	}
+
+
+	@Test
+	void testSetPageFormat_JavaToBinary_ShouldMigrateExistingPages() throws DBAppException, IOException {
+		// Given
+		engine.setPageFormat(newTableName, PageFormat.JAVA);
+		for (int i = 0; i < 200; i++)
+			insertRow(i);
+		engine.checkpoint();
+		boolean wasBinary = PageCodec.isBinaryPage(PageFile.of(newTableName).read(1));
+
+		// When
+		engine.setPageFormat(newTableName, PageFormat.BINARY);
+
+		// Then
+		assertFalse(wasBinary);
+		assertTrue(PageCodec.isBinaryPage(PageFile.of(newTableName).read(1)));
+		Page page = persistedPage(1);
+		assert page != null;
+		assertEquals(200, page.getSize());
+		assertEquals(199, page.getTuples().get(199).getPrimaryKeyValue());
+		assertEquals(TEST_NAME, page.getTuples().get(0).getValues().get(name));
+		assertEquals(TEST_GPA, page.getTuples().get(0).getValues().get(gpa));
+	}
+
+
+	@Test
+	void testPageFile_InsertIntoTable_ShouldStoreAllPagesInOneFile() throws DBAppException, IOException {
+		// Given
+		for (int i = 0; i < 250; i++)
+			insertRow(i);
+
+		// When
+		engine.checkpoint();
+
+		// Then
+		File[] files = new File("Pages/" + newTableName).listFiles();
+		assert files != null;
+		assertEquals(1, files.length);
+		assertEquals(PageFile.getPath(newTableName).toFile().getName(), files[0].getName());
+		assertNotNull(PageFile.of(newTableName).read(1));
+		assertNotNull(PageFile.of(newTableName).read(2));
+		assertNull(PageFile.of(newTableName).read(3));
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(List.of(1, 2), table.getPageIds());
+	}
+
+
+	@Test
+	void testTuple_InsertIntoTable_ShouldShareTheTableSchema() throws DBAppException {
+		// Given
+		for (int i = 0; i < 3; i++)
+			insertRow(i);
+
+		// When
+		Table table = Objects.requireNonNull(persistedTable());
+		Page page = table.getPageAtPosition(0);
+
+		// Then
+		Tuple first = page.getTuples().get(0);
+		Tuple second = page.getTuples().get(1);
+		assertSame(first.getSchema(), second.getSchema());
+		assertEquals(TEST_NAME, second.get(table.getSchema().ordinalOf(name)));
+		assertEquals(List.of(id, name, gpa), List.copyOf(second.getValues().keySet()));
+		assertEquals(1, second.getPrimaryKeyValue());
+	}
+
+
+	@Test
+	void testBulkLoad_SortedPointers_ShouldBuildSearchableTree() {
+		// Given
+		List<Pointer<Integer, String>> pointers = new ArrayList<>();
+		for (int i = 0; i < 5000; i++)
+			pointers.add(new Pointer<>(i / 2, "1-" + i));
+		BTree<Integer, String> bTree = new BTree<>("idIndex", id);
+
+		// When
+		bTree.bulkLoad(pointers.iterator());
+		bTree.insert(5000, "2-5000");
+		bTree.delete(0);
+		bTree.delete(1, "1-2");
+
+		// Then
+		assertFalse(bTree.checkKeyExists(0));
+		assertEquals(List.of("1-3"), bTree.search(1));
+		for (int i = 2; i < 2500; i++)
+			assertEquals(List.of("1-" + 2 * i, "1-" + (2 * i + 1)), bTree.search(i));
+		assertTrue(bTree.checkKeyExists(5000));
+		assertEquals(4997, bTree.getLessThanKeys(2500).size());
+		assertEquals(3, bTree.getMoreThanOrEqualKeys(2499).size());
+	}
+
+	@Test
+	void testInsert_ShuffledDuplicateKeys_ShouldKeepEveryKeySearchable() {
+		// Given
+		List<Integer> keys = new ArrayList<>();
+		for (int i = 0; i < 3000; i++)
+			keys.add(i % 1000);
+		java.util.Collections.shuffle(keys, new java.util.Random(7));
+		BTree<Integer, String> bTree = new BTree<>("gpaIndex", gpa, true);
+
+		// When
+		for (int i = 0; i < keys.size(); i++)
+			bTree.insert(keys.get(i), String.valueOf(i));
+		for (int i = 0; i < 1000; i += 2)
+			bTree.delete(i);
+
+		// Then
+		for (int i = 0; i < 1000; i++)
+			assertEquals(i % 2 == 1, bTree.checkKeyExists(i));
+		assertEquals(3, bTree.search(999).size());
+		assertEquals(750, bTree.getLessThanKeys(500).size());
+		assertEquals(747, bTree.getMoreThanKeys(501).size());
+	}
+
+	@Test
+	void testRange_BoundedKeys_ShouldWalkOnlyKeysBetweenBounds() {
+		// Given
+		BTree<Integer, String> bTree = new BTree<>("idIndex", id);
+		for (int i = 0; i < 1000; i += 3)
+			bTree.insert(i, "1-" + i);
+
+		// When
+		BTreeCursor<Integer, String> cursor = bTree.range(300, false, 330, true);
+		List<Integer> keys = new ArrayList<>();
+		cursor.forEachRemaining(keys::add);
+
+		// Then
+		assertEquals(List.of(303, 306, 309, 312, 315, 318, 321, 324, 327, 330), keys);
+		assertFalse(bTree.range(301, true, 302, true).hasNext());
+		BTreeCursor<Integer, String> tail = bTree.range(998, true, null, true);
+		assertEquals(999, tail.next());
+		assertEquals(List.of("1-999"), tail.values());
+		assertEquals(334, getIteratorSize(bTree.range(null, true, null, true)));
+	}
+
+	@Test
+	void testSelectFromTable_AndedRangesOnIndexedColumn_ShouldReturnTuplesBetweenBounds() throws DBAppException {
+		// Given
+		engine.createIndex(newTableName, gpa, gpa+"Index");
+		for (int i = 0; i < 500; i++)
+			engine.insertIntoTable(newTableName, createRow(i, TEST_NAME, i / 100.0));
+		SQLTerm[] sqlTerms = new SQLTerm[3];
+		sqlTerms[0] = new SQLTerm(newTableName, gpa, ">", 1.0);
+		sqlTerms[1] = new SQLTerm(newTableName, gpa, "<=", 2.5);
+		sqlTerms[2] = new SQLTerm(newTableName, gpa, ">=", 0.5);
+
+		// When
+		Iterator it = engine.selectFromTable(sqlTerms, new String[] { "AND", "AND" });
+
+		// Then
+		assertEquals(150, getIteratorSize(it));
+		assertEquals(0, getIteratorSize(engine.selectFromTable(new SQLTerm[] {
+				new SQLTerm(newTableName, gpa, ">", 3.0), new SQLTerm(newTableName, gpa, "<", 2.0) }, new String[] { "AND" })));
+	}
+
+
+	@Test
+	void testCreateIndex_PagedIndexes_ShouldKeepNodesInTheirOwnFile() throws DBAppException {
+		int pagedIndexes = DBApp.pagedIndexes;
+		int indexCacheNodes = DBApp.indexCacheNodes;
+		DBApp.pagedIndexes = 1;
+		DBApp.indexCacheNodes = 4;
+		try {
+			// Given
+			for (int i = 0; i < 300; i++)
+				engine.insertIntoTable(newTableName, createRow(i, TEST_NAME, i / 100.0));
+			engine.createIndex(newTableName, gpa, gpa+"Index");
+
+			// When
+			for (int i = 300; i < 600; i++)
+				engine.insertIntoTable(newTableName, createRow(i, TEST_NAME, i / 100.0));
+			Hashtable<String, Object> htblColNameValue = new Hashtable<>();
+			htblColNameValue.put(gpa, 1.5);
+			engine.deleteFromTable(newTableName, htblColNameValue);
+
+			// Then
+			assertTrue(new File("Pages/" + newTableName + "/" + gpa + "Index.idx").exists());
+			Table table = persistedTable();
+			assert table != null;
+			BTree<Double, String> bTree = (BTree<Double, String>) table.getBTree(gpa);
+			assertFalse(bTree.checkKeyExists(1.5));
+			assertEquals(List.of("450"), bTree.search(4.5));
+			assertEquals(599, getIteratorSize(bTree.range(null, true, null, true)));
+			assertEquals(100, getIteratorSize(engine.selectFromTable(new SQLTerm[] {
+					new SQLTerm(newTableName, gpa, ">=", 5.0) }, new String[] {})));
+		} finally {
+			DBApp.pagedIndexes = pagedIndexes;
+			DBApp.indexCacheNodes = indexCacheNodes;
+		}
+	}
+
+
+	@Test
+	void testUpdateTable_TwoIndices_ShouldOnlyRewriteTheUpdatedIndex() throws DBAppException {
+		// Given
+		for (int i = 0; i < 50; i++)
+			insertRow(i);
+		engine.createIndex(newTableName, gpa, gpa+"Index");
+		engine.createIndex(newTableName, name, name+"Index");
+		File nameIndexFile = new File(Serializer.getIndexPath(newTableName, name+"Index"));
+		assertTrue(nameIndexFile.delete());
+
+		// When
+		Hashtable<String, Object> htblColNameValue = new Hashtable<>();
+		htblColNameValue.put(gpa, 3.5);
+		engine.updateTable(newTableName, "7", htblColNameValue);
+
+		// Then
+		Table table = persistedTable();
+		assert table != null;
+		assertFalse(nameIndexFile.exists());
+		assertEquals(List.of("7"), ((BTree<Double, String>) table.getBTree(gpa)).search(3.5));
+	}
+
+
+	@Test
+	void testClusteringKeys_DuplicateHeavyKeys_ShouldCombineCompressedPostings() {
+		// Given
+		BTree<Integer, String> bTree = new BTree<>("gpaIndex", gpa, true, true);
+		for (int i = 0; i < 3000; i++)
+			bTree.insert(i % 3, RecordId.of(0, i));
+		bTree.delete(1, RecordId.of(0, 4));
+
+		// When
+		PostingList zeros = bTree.clusteringKeys(0, true, 0, true);
+		PostingList ones = bTree.clusteringKeys(1, true, 1, true);
+		PostingList evens = PostingList.of(new long[] { RecordId.of(0, 0), RecordId.of(0, 2), RecordId.of(0, 4), RecordId.of(0, 6) }, 4);
+
+		// Then
+		assertEquals(1000, zeros.size());
+		assertEquals(999, ones.size());
+		assertEquals(999, bTree.search(1).size());
+		assertEquals(List.of(RecordId.of(0, 0), RecordId.of(0, 6)), Arrays.stream(zeros.and(evens).toArray()).boxed().toList());
+		assertEquals(1999, zeros.or(ones).size());
+		assertEquals(1002, zeros.or(evens).size());
+		assertEquals(1999, bTree.clusteringKeys(0, true, 1, true).size());
+	}
+
+	@Test
+	void testSelectFromTable_AndedTermsOnTwoIndices_ShouldIntersectClusteringKeys() throws DBAppException {
+		// Given
+		engine.createIndex(newTableName, gpa, gpa+"Index");
+		engine.createIndex(newTableName, name, name+"Index");
+		for (int i = 0; i < 600; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + (i % 4), (i % 5) / 2.0));
+		SQLTerm[] sqlTerms = new SQLTerm[3];
+		sqlTerms[0] = new SQLTerm(newTableName, name, "=", "name1");
+		sqlTerms[1] = new SQLTerm(newTableName, gpa, ">=", 1.0);
+		sqlTerms[2] = new SQLTerm(newTableName, gpa, "<", 2.0);
+
+		// When
+		Iterator it = engine.selectFromTable(sqlTerms, new String[] { "AND", "AND" });
+
+		// Then
+		assertEquals(60, getIteratorSize(it));
+	}
+
+
+	@Test
+	void testSelectFromTable_BitmapIndices_ShouldCombineTermsBitwise() throws DBAppException {
+		// Given
+		engine.createIndex(newTableName, name, name+"Index", IndexType.BITMAP);
+		engine.createIndex(newTableName, gpa, gpa+"Index", IndexType.BITMAP);
+		for (int i = 0; i < 600; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + (i % 4), (i % 5) / 2.0));
+		Hashtable<String, Object> values = new Hashtable<>();
+		values.put(gpa, 1.0);
+		engine.updateTable(newTableName, "5", values);
+		values = new Hashtable<>();
+		values.put(id, 1);
+		engine.deleteFromTable(newTableName, values);
+		SQLTerm[] sqlTerms = new SQLTerm[5];
+		sqlTerms[0] = new SQLTerm(newTableName, name, "=", "name1");
+		sqlTerms[1] = new SQLTerm(newTableName, gpa, "!=", 1.0);
+		sqlTerms[2] = new SQLTerm(newTableName, name, "=", "name3");
+		sqlTerms[3] = new SQLTerm(newTableName, gpa, "=", 0.5);
+		sqlTerms[4] = new SQLTerm(newTableName, gpa, "=", 0.0);
+		int expected = 0;
+		for (int i = 0; i < 600; i++) {
+			String rowName = "name" + (i % 4);
+			double rowGpa = i == 5 ? 1.0 : (i % 5) / 2.0;
+			boolean orResult = (rowName.equals("name1") && rowGpa != 1.0) || (rowName.equals("name3") && rowGpa == 0.5);
+			if (i != 1 && orResult ^ rowGpa == 0.0)
+				expected++;
+		}
+
+		// When
+		Iterator it = engine.selectFromTable(sqlTerms, new String[] { "AND", "OR", "AND", "XOR" });
+
+		// Then
+		assertEquals(expected, getIteratorSize(it));
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(5, table.getBitmapIndex(gpa).distinctValues());
+		assertEquals(0, table.getBitmapIndex(gpa).lookup("=", 0.5).and(table.getBitmapIndex(gpa).lookup("=", 1.0)).cardinality());
+		assertFalse(table.getBitmapIndex(name).lookup("=", "name1").contains(1));
+	}
+
+	@Test
+	void testSQLParser_CreateIndexUsingBitmap_ShouldRecordIndexType() throws DBAppException, IOException {
+		// Given
+		for (int i = 1; i < 9; i++)
+			insertRow(i);
+		StringBuffer command = new StringBuffer("CREATE INDEX " + name + "Index ON " + newTableName + " (" + name + ") USING BITMAP;");
+
+		// When
+		engine.parseSQL(command);
+
+		// Then
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(8, table.getBitmapIndex(name).lookup("=", TEST_NAME).cardinality());
+		assertNull(table.getBTree(name));
+		assertTrue(Files.readAllLines(Path.of("metadata.csv")).contains(newTableName + "," + name + "," + STRING_DATA_TYPE_NAME + ",false," + name + "Index,Bitmap"));
+	}
+
+
+	@Test
+	void testDeleteFromTable_HashIndexUsingSQL_ShouldOnlyTouchMatchingTuples() throws DBAppException, IOException {
+		// Given
+		engine.parseSQL(new StringBuffer("CREATE INDEX " + name + "Index ON " + newTableName + " (" + name + ") USING HASH;"));
+		for (int i = 0; i < 200; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + (i % 50), TEST_GPA));
+		SQLTerm[] sqlTerms = new SQLTerm[1];
+		sqlTerms[0] = new SQLTerm(newTableName, name, "=", "name7");
+		Hashtable<String, Object> values = new Hashtable<>();
+		values.put(name, "name7");
+
+		// When
+		Iterator it = engine.selectFromTable(sqlTerms, new String[0]);
+		int selected = getIteratorSize(it);
+		engine.deleteFromTable(newTableName, values);
+
+		// Then
+		assertEquals(4, selected);
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(196, table.getSize());
+		assertTrue(table.getHashIndex(name).lookup("name7").isEmpty());
+		assertEquals(List.of(8, 58, 108, 158), table.getHashIndex(name).lookup("name8"));
+		assertTrue(table.getHashIndex(name).bucketCount() > 4);
+		assertTrue(Files.readAllLines(Path.of("metadata.csv")).contains(newTableName + "," + name + "," + STRING_DATA_TYPE_NAME + ",false," + name + "Index,Hash"));
+	}
+
+
+	@Test
+	void testCompositeKey_PrefixBounds_ShouldEncloseKeysWithThePrefix() {
+		// Given
+		CompositeKey key = CompositeKey.of("name1", 0.5);
+		CompositeKey smaller = CompositeKey.of("name0", 2.0);
+		CompositeKey larger = CompositeKey.of("name1", 1.0);
+
+		// Then
+		assertTrue(smaller.compareTo(key) < 0 && key.compareTo(larger) < 0);
+		assertTrue(CompositeKey.lowerBound("name1").compareTo(key) < 0);
+		assertTrue(CompositeKey.upperBound("name1").compareTo(larger) > 0);
+		assertTrue(CompositeKey.lowerBound("name1").compareTo(smaller) > 0);
+		assertTrue(CompositeKey.upperBound("name1", 0.5).compareTo(key) > 0);
+		assertTrue(CompositeKey.upperBound("name1", 0.5).compareTo(larger) < 0);
+		assertTrue(CompositeKey.lowerBound("name1", 0.5).compareTo(key) < 0);
+		assertTrue(key.compareTo(CompositeKey.lowerBound("name1", 0.5)) > 0);
+	}
+
+	@Test
+	void testSelectFromTable_CompositeIndex_ShouldScanOnePrefixRange() throws DBAppException, IOException {
+		// Given
+		engine.parseSQL(new StringBuffer("CREATE INDEX nameGpaIndex ON " + newTableName + " (" + name + ", " + gpa + ");"));
+		for (int i = 0; i < 600; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + (i % 4), (i % 5) / 2.0));
+		Hashtable<String, Object> values = new Hashtable<>();
+		values.put(gpa, 2.0);
+		engine.updateTable(newTableName, "1", values);
+		values = new Hashtable<>();
+		values.put(id, 5);
+		engine.deleteFromTable(newTableName, values);
+		SQLTerm[] sqlTerms = new SQLTerm[2];
+		sqlTerms[0] = new SQLTerm(newTableName, name, "=", "name1");
+		sqlTerms[1] = new SQLTerm(newTableName, gpa, ">", 0.5);
+
+		// When
+		Iterator it = engine.selectFromTable(sqlTerms, new String[] { "AND" });
+
+		// Then
+		// Tuple 1 moved from (name1, 0.5) to (name1, 2.0) and tuple 5 was deleted
+		assertEquals(91, getIteratorSize(it));
+		Table table = persistedTable();
+		assert table != null;
+		BTree<CompositeKey, String> index = (BTree<CompositeKey, String>) table.getBTree(name + "," + gpa);
+		BTreeCursor<CompositeKey, String> cursor = index.range(CompositeKey.upperBound("name1", 0.5), true, CompositeKey.upperBound("name1"), true);
+		List<CompositeKey> keys = new ArrayList<>();
+		while (cursor.hasNext())
+			keys.add(cursor.next());
+		assertEquals(List.of(CompositeKey.of("name1", 1.0), CompositeKey.of("name1", 1.5), CompositeKey.of("name1", 2.0)), keys);
+		List<String> metadata = Files.readAllLines(Path.of("metadata.csv"));
+		assertTrue(metadata.contains(newTableName + "," + name + "," + STRING_DATA_TYPE_NAME + ",false,nameGpaIndex,B+Tree"));
+		assertTrue(metadata.contains(newTableName + "," + gpa + "," + DOUBLE_DATA_TYPE_NAME + ",false,nameGpaIndex,B+Tree"));
+	}
+
+
+	@Test
+	void testSelectFromTable_CoveringIndex_ShouldNotReadAnyPage() throws DBAppException, IOException {
+		// Given
+		engine.parseSQL(new StringBuffer("CREATE INDEX gpaNameIndex ON " + newTableName + " (" + gpa + ") INCLUDE (" + name + ");"));
+		for (int i = 0; i < 300; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + (i % 3), (i % 4) / 2.0));
+		Hashtable<String, Object> values = new Hashtable<>();
+		values.put(gpa, 1.5);
+		engine.updateTable(newTableName, "1", values);
+		values = new Hashtable<>();
+		values.put(id, 7);
+		engine.deleteFromTable(newTableName, values);
+		// Without its pages the table can only be answered from the index
+		engine.checkpoint();
+		engine.getBufferPool().discardTable(newTableName);
+		Serializer.deletePages(newTableName);
+		SQLTerm[] sqlTerms = new SQLTerm[2];
+		sqlTerms[0] = new SQLTerm(newTableName, gpa, ">=", 1.0);
+		sqlTerms[1] = new SQLTerm(newTableName, name, "=", "name1");
+
+		// When
+		Iterator it = engine.selectFromTable(sqlTerms, new String[] { "AND" }, new String[] { name, id });
+
+		// Then
+		// Tuple 1 moved from gpa 0.5 to 1.5 and tuple 7 was deleted
+		List<Integer> ids = new ArrayList<>();
+		while (it.hasNext()) {
+			Tuple tuple = (Tuple) it.next();
+			assertEquals(2, tuple.getSchema().size());
+			assertEquals("name1", tuple.get(name));
+			ids.add((Integer) tuple.get(id));
+		}
+		assertEquals(50, ids.size());
+		assertTrue(ids.contains(1));
+		assertFalse(ids.contains(7));
+		List<String> metadata = Files.readAllLines(Path.of("metadata.csv"));
+		assertTrue(metadata.contains(newTableName + "," + gpa + "," + DOUBLE_DATA_TYPE_NAME + ",false,gpaNameIndex,B+Tree"));
+		assertTrue(metadata.contains(newTableName + "," + name + "," + STRING_DATA_TYPE_NAME + ",false,null,null"));
+	}
+
+	@Test
+	void testSelectFromTable_ZoneMaps_ShouldSkipPagesOutsideTheRange() throws DBAppException {
+		// Given
+		for (int i = 0; i < 1000; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + i, i / 100.0));
+		Hashtable<String, Object> values = new Hashtable<>();
+		values.put(gpa, 9.5);
+		engine.updateTable(newTableName, "1", values);
+		values = new Hashtable<>();
+		values.put(gpa, 9.9);
+		engine.deleteFromTable(newTableName, values);
+		SQLTerm[] sqlTerms = new SQLTerm[1];
+		sqlTerms[0] = new SQLTerm(newTableName, gpa, ">=", 9.0);
+
+		// When
+		Iterator it = engine.selectFromTable(sqlTerms, new String[0]);
+
+		// Then
+		// Tuple 1 moved to 9.5 and tuple 990 was deleted
+		assertEquals(100, getIteratorSize(it));
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(999, table.getSize());
+		List<Integer> pageIds = table.getPageIds();
+		assertEquals(5, pageIds.size());
+		assertEquals(Set.of(pageIds.get(0), pageIds.get(4)), table.computeSQLTerm(sqlTerms[0]));
+		// The update widened the range of the first page
+		assertEquals(Set.of(pageIds.get(0), pageIds.get(2)), table.computeSQLTerm(new SQLTerm(newTableName, gpa, "=", 5.0)));
+	}
+
+	@Test
+	void testDeleteFromTable_BloomFilters_ShouldOnlyReadPagesHoldingTheValue() throws DBAppException {
+		// Given
+		// Names are spread over every page so the range of names of each page covers almost all of them
+		for (int i = 0; i < 1000; i++)
+			engine.insertIntoTable(newTableName, createRow(i, "name" + (i * 7 % 1000), TEST_GPA));
+		engine.createBloomFilter(newTableName, name, 0.01);
+		engine.insertIntoTable(newTableName, createRow(1000, "name500", TEST_GPA));
+		Hashtable<String, Object> values = new Hashtable<>();
+		values.put(name, "name7");
+
+		// When
+		engine.deleteFromTable(newTableName, values);
+
+		// Then
+		// Tuple 1 held name7, name500 is held by tuple 500 on the third page and the new tuple on the last one
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(1000, table.getSize());
+		List<Integer> pageIds = table.getPageIds();
+		assertEquals(6, pageIds.size());
+		assertEquals(Set.of(), table.computeSQLTerm(new SQLTerm(newTableName, name, "=", "name7")));
+		assertEquals(Set.of(pageIds.get(2), pageIds.get(5)), table.computeSQLTerm(new SQLTerm(newTableName, name, "=", "name500")));
+		assertThrows(DBAppException.class, () -> engine.createBloomFilter(newTableName, name, 1.5));
+	}
+
+	@Test
+	void testInsertIntoTable_KeyFilter_ShouldStillRejectDuplicatesOnceItGrows() throws DBAppException {
+		// Given
+		// The filter starts with room for a page of keys and is rebuilt bigger as the table grows
+		for (int i = 0; i < 1000; i++)
+			insertRow(i);
+		Hashtable<String, Object> values = new Hashtable<>();
+		values.put(id, 500);
+		engine.deleteFromTable(newTableName, values);
+
+		// When
+		engine.insertIntoTable(newTableName, createRow(500, TEST_NAME, TEST_GPA));
+
+		// Then
+		for (int i = 0; i < 1000; i += 37) {
+			int key = i;
+			assertThrows(DBAppException.class, () -> insertRow(key));
+		}
+		List<Hashtable<String, Object>> rows = List.of(createRow(2000, TEST_NAME, TEST_GPA), createRow(300, TEST_NAME, TEST_GPA));
+		assertThrows(DBAppException.class, () -> engine.bulkInsert(newTableName, rows.iterator()));
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(1000, table.getSize());
+		assertTrue(table.mayContainKey(500));
+		int falsePositives = 0;
+		for (int i = 1000; i < 11000; i++) {
+			if (table.mayContainKey(i))
+				falsePositives++;
+		}
+		assertTrue(falsePositives < 10);
+	}
+
+	@Test
+	void testInsertIntoTable_KeyFilterWithCollidingKeys_ShouldStillRejectDuplicates() throws DBAppException {
+		// Given
+		// Every key made of Aa and BB blocks has the same hash code, a bucket pair only holds 8 of them
+		engine.deleteTable(newTableName);
+		engine.createTable(newTableName, name, createHashtable(INTEGER_DATA_TYPE_NAME, STRING_DATA_TYPE_NAME, DOUBLE_DATA_TYPE_NAME));
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			StringBuilder key = new StringBuilder();
+			for (int block = 3; block >= 0; block--)
+				key.append((i >> block & 1) == 0 ? "Aa" : "BB");
+			keys.add(key.toString());
+			engine.insertIntoTable(newTableName, createRow(i, key.toString(), TEST_GPA));
+		}
+		engine.insertIntoTable(newTableName, createRow(16, "other", TEST_GPA));
+		for (int i = 0; i < 8; i++) {
+			Hashtable<String, Object> values = new Hashtable<>();
+			values.put(name, keys.get(i));
+			engine.deleteFromTable(newTableName, values);
+		}
+
+		// When
+		List<Hashtable<String, Object>> rows = List.of(createRow(17, "BBBBBBBB", TEST_GPA));
+		Exception exception = assertThrows(DBAppException.class, () -> engine.bulkInsert(newTableName, rows.iterator()));
+
+		// Then
+		assertEquals("Primary key already exists", exception.getMessage());
+		assertThrows(DBAppException.class, () -> engine.insertIntoTable(newTableName, createRow(18, "BBBBBBBB", TEST_GPA)));
+		Table table = persistedTable();
+		assert table != null;
+		assertEquals(9, table.getSize());
+		assertTrue(table.mayContainKey("other"));
+	}
+
+	@Test
+	void testCreateIndex_SecondHashIndexOnColumn_ShouldThrowException() throws DBAppException, IOException {
+		// Given
+		engine.createIndex(newTableName, name, "nameHash", IndexType.HASH);
+
+		// When
+		Exception exception = assertThrows(DBAppException.class, () -> engine.createIndex(newTableName, name, "otherHash", IndexType.HASH));
+
+		// Then
+		assertEquals("Index already exists", exception.getMessage());
+		List<String> metadata = Files.readAllLines(Path.of("metadata.csv"));
+		assertTrue(metadata.contains(newTableName + "," + name + "," + STRING_DATA_TYPE_NAME + ",false,nameHash,Hash"));
+	}
+
+	// Persists the resident tables and reads the table back from the Tables directory
+	private static Table persistedTable() {
+		engine.checkpoint();
+		return Serializer.deserializeTable(newTableName);
+	}
+
+	// Persists the resident tables and reads a page back from the Pages directory
+	private static Page persistedPage(int serial) {
+		engine.checkpoint();
+		return Serializer.deserializePage(newTableName, serial);
+	}
+
 	private int getIteratorSize(Iterator it) {
 		int ret = 0;
 		while (it.hasNext()) {